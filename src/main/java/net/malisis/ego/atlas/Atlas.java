@@ -33,22 +33,35 @@ import net.malisis.ego.EGO;
 import net.malisis.ego.gui.render.GuiIcon;
 import net.malisis.ego.gui.render.GuiTexture;
 import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.GlStateManager;
 import net.minecraft.client.renderer.texture.ITextureObject;
 import net.minecraft.client.renderer.texture.TextureUtil;
 import net.minecraft.client.resources.IResource;
 import net.minecraft.client.resources.IResourceManager;
 import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.math.MathHelper;
+import net.minecraftforge.fml.common.ProgressManager;
+import net.minecraftforge.fml.common.ProgressManager.ProgressBar;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
+import org.apache.commons.io.IOUtils;
+import org.lwjgl.opengl.GL11;
 
 import java.awt.image.BufferedImage;
+import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.zip.CRC32;
 
 /**
  * @author Ordinastie
@@ -61,7 +74,13 @@ public class Atlas implements ITextureObject
 	private final GuiTexture texture;
 	private final Set<Consumer<Atlas>> iconRegisters = Sets.newHashSet();
 	private final Map<ResourceLocation, Holder> holders = Maps.newHashMap();
+	private Stitcher.Packing packing = Stitcher.Packing.MAX_RECTS;
 	private int glTextureId = -1;
+	/** Additional pages, used when the icons don't fit in a single texture. */
+	private final List<Page> pages = Lists.newArrayList();
+	private int pageCount = 1;
+	/** Free space of each page, built on the first runtime change to the atlas. */
+	private List<MaxRectsPacker> freeSpace;
 
 	public Atlas(String name)
 	{
@@ -80,6 +99,37 @@ public class Atlas implements ITextureObject
 		return texture;
 	}
 
+	/**
+	 * Gets the {@link GuiTexture} for the page of this {@link Atlas}.
+	 *
+	 * @param page the page
+	 * @return the texture
+	 */
+	public GuiTexture texture(int page)
+	{
+		return page == 0 ? texture : pages.get(page - 1).texture;
+	}
+
+	public int pageCount()
+	{
+		return pageCount;
+	}
+
+	public Stitcher.Packing packing()
+	{
+		return packing;
+	}
+
+	/**
+	 * Sets the algorithm used to place the icons in this {@link Atlas}. Takes effect the next time the atlas is loaded.
+	 *
+	 * @param packing the packing
+	 */
+	public void setPacking(Stitcher.Packing packing)
+	{
+		this.packing = checkNotNull(packing);
+	}
+
 	public void addIconRegister(Consumer<Atlas> iconRegister)
 	{
 		iconRegisters.add(checkNotNull(iconRegister));
@@ -113,27 +163,412 @@ public class Atlas implements ITextureObject
 		return icon;
 	}
 
+	/**
+	 * Adds an icon to this {@link Atlas} once it is already loaded, from an image that is not part of the resources.<br>
+	 * If the icon already exists, its image is replaced.<br>
+	 * The image is uploaded in the free space of an existing page, the atlas is only rebuilt when there is no space left.<br>
+	 * Must be called from the client thread.
+	 *
+	 * @param location the location identifying the icon
+	 * @param image the image
+	 * @return the icon
+	 */
+	public GuiIcon add(ResourceLocation location, BufferedImage image)
+	{
+		Holder holder = holders.get(location);
+		if (holder == null)
+		{
+			holder = new Holder(new GuiIcon(location));
+			holders.put(location, holder);
+		}
+		else
+			release(holder);
+
+		holder.setImage(image);
+		insert(holder);
+		return holder.icon();
+	}
+
+	/**
+	 * Adds an icon to this {@link Atlas} once it is already loaded, reading the texture from the resources.<br>
+	 * Must be called from the client thread.
+	 *
+	 * @param location the location
+	 * @return the icon
+	 * @see #add(ResourceLocation, BufferedImage)
+	 */
+	public GuiIcon add(ResourceLocation location)
+	{
+		if (holders.get(location) != null)
+			return holders.get(location)
+						  .icon();
+
+		GuiIcon icon = register(location);
+		Holder holder = holders.get(location);
+		holder.loadTexture(Minecraft.getMinecraft()
+									.getResourceManager());
+		insert(holder);
+		return icon;
+	}
+
+	/**
+	 * Removes an icon from this {@link Atlas}, giving back its space to the page.<br>
+	 * The icon won't be rendered anymore.<br>
+	 * Must be called from the client thread.
+	 *
+	 * @param location the location
+	 */
+	public void remove(ResourceLocation location)
+	{
+		Holder holder = holders.remove(location);
+		if (holder == null)
+			return;
+
+		release(holder);
+		holder.discard();
+	}
+
+	/**
+	 * Places the {@link Holder} in the first page with enough free space and uploads its texture data with {@code glTexSubImage2D}.<br>
+	 * Rebuilds the whole atlas if it doesn't fit anywhere.
+	 *
+	 * @param holder the holder
+	 */
+	private void insert(Holder holder)
+	{
+		if (holder.textureData() == null)
+		{
+			holder.discard();
+			return;
+		}
+
+		//restore the binding afterwards so the GuiRenderer texture cache stays valid
+		int bound = GL11.glGetInteger(GL11.GL_TEXTURE_BINDING_2D);
+		if (!insertInPage(holder))
+		{
+			EGO.log.info("No space left in atlas {} for {}, rebuilding.", name, holder);
+			loadTexture(Minecraft.getMinecraft()
+								 .getResourceManager());
+		}
+		GlStateManager.bindTexture(bound);
+	}
+
+	private boolean insertInPage(Holder holder)
+	{
+		List<MaxRectsPacker> space = freeSpace();
+		for (int page = 0; page < pageCount; page++)
+		{
+			int[] pos = space.get(page)
+							 .insert(holder.width(), holder.height());
+			if (pos == null)
+				continue;
+
+			GlStateManager.bindTexture(page == 0 ? getGlTextureId() : pages.get(page - 1)
+																			.getGlTextureId());
+			holder.setPosition(pos[0], pos[1]);
+			holder.upload(page);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Gives back the space used by the {@link Holder} to its page.
+	 *
+	 * @param holder the holder
+	 */
+	private void release(Holder holder)
+	{
+		if (freeSpace != null && holder.isStitched())
+			freeSpace.get(holder.page())
+					 .release(holder.x(), holder.y(), holder.width(), holder.height());
+	}
+
+	/**
+	 * Gets the free space of each page, building it from the stitched holders if needed.
+	 *
+	 * @return the free space
+	 */
+	private List<MaxRectsPacker> freeSpace()
+	{
+		if (freeSpace != null)
+			return freeSpace;
+
+		freeSpace = Lists.newArrayListWithCapacity(pageCount);
+		for (int i = 0; i < pageCount; i++)
+		{
+			MaxRectsPacker packer = new MaxRectsPacker();
+			packer.reset(texture(i).width(), texture(i).height());
+			freeSpace.add(packer);
+		}
+
+		for (Holder holder : holders.values())
+		{
+			if (holder.isStitched())
+				freeSpace.get(holder.page())
+						 .occupy(holder.x(), holder.y(), holder.width(), holder.height());
+		}
+		return freeSpace;
+	}
+
 	@Override
 	public void loadTexture(IResourceManager resourceManager)
 	{
 		deleteGlTexture();
+		freeSpace = null;
+
+		ExecutorService executor = newLoader();
+		try
+		{
+			//skip decoding and stitching if the icons and their resources did not change
+			File cacheFile = AtlasCache.file(name);
+			long key = cacheKey(resourceManager, executor);
+			if (key != 0 && loadFromCache(AtlasCache.read(cacheFile, key)))
+				return;
+
+			//load texture data into holders
+			loadHolders(resourceManager, executor);
+			stitchPages();
 
+			if (key != 0)
+			{
+				AtlasCache cache = toCache();
+				executor.execute(() -> cache.write(cacheFile, key));
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Stitches the holders and uploads their texture data.<br>
+	 * The icons that don't fit in the maximum texture size spill over to additional pages.
+	 */
+	private void stitchPages()
+	{
 		int maxSize = Minecraft.getGLMaximumTextureSize();
-		Stitcher stitcher = new Stitcher(maxSize, maxSize);
+		List<Holder> remaining = Lists.newArrayList(holders.values());
+		pageCount = 0;
+		do
+		{
+			//allocates node positions and expand atlas if necessary
+			Stitcher stitcher = new Stitcher(maxSize, maxSize, packing);
+			List<Holder> unplaced = stitcher.stitch(remaining);
+			if (!remaining.isEmpty() && unplaced.size() == remaining.size())
+			{
+				//not even a single icon fits on an empty page
+				for (Holder holder : unplaced)
+				{
+					EGO.log.error("No place to fit {}.", holder);
+					holder.discard();
+				}
+				break;
+			}
 
-		//load texture data into holders
-		holders.values()
-			   .forEach(h -> h.loadTexture(resourceManager));
+			int page = pageCount++;
+			EGO.log.info("Created: {}x{} atlas page {} for GUIs ({}, {}% of page used)",
+						 stitcher.width(),
+						 stitcher.height(),
+						 page,
+						 packing,
+						 Math.round(stitcher.pageEfficiency() * 100));
+			allocatePage(page, stitcher.width(), stitcher.height());
+
+			//upload texture data to the texture
+			Set<Holder> skipped = Sets.newHashSet(unplaced);
+			for (Holder holder : remaining)
+			{
+				if (!skipped.contains(holder))
+					holder.upload(page);
+			}
+			remaining = unplaced;
+		}
+		while (!remaining.isEmpty());
+	}
+
+	/**
+	 * Allocates the GL texture for the page, and binds it.
+	 *
+	 * @param page the page
+	 * @param width the width
+	 * @param height the height
+	 */
+	private void allocatePage(int page, int width, int height)
+	{
+		if (page == 0)
+			TextureUtil.allocateTexture(getGlTextureId(), width, height);
+		else
+		{
+			while (pages.size() < page)
+				pages.add(new Page(pages.size() + 1));
+			TextureUtil.allocateTexture(pages.get(page - 1)
+											 .getGlTextureId(), width, height);
+		}
+		texture(page).setSize(width, height);
+	}
 
-		//allocates node positions and expand atlas if necessary
-		stitcher.stitch(holders);
-		EGO.log.info("Created: {}x{} atlas for GUIs", stitcher.width(), stitcher.height());
-		TextureUtil.allocateTexture(getGlTextureId(), stitcher.width(), stitcher.height());
-		texture.setSize(stitcher.width(), stitcher.height());
+	/**
+	 * Creates a bounded pool of daemon threads to load the resources of the holders.
+	 *
+	 * @return the executor service
+	 */
+	private static ExecutorService newLoader()
+	{
+		int threads = MathHelper.clamp(Runtime.getRuntime()
+											  .availableProcessors() - 1, 1, 8);
+		return Executors.newFixedThreadPool(threads, r -> {
+			Thread thread = new Thread(r, "EGO atlas loader");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
 
-		//upload texture data to the texture
-		holders.values()
-			   .forEach(h -> h.upload(stitcher.width(), stitcher.height()));
+	/**
+	 * Computes the key identifying the registered icons and the content of their resources.<br>
+	 * Returns 0 if it could not be computed or the atlas contains images added at runtime, in which case the cache is not used.
+	 *
+	 * @param resourceManager the resource manager
+	 * @param executor the executor
+	 * @return the key
+	 */
+	private long cacheKey(IResourceManager resourceManager, ExecutorService executor)
+	{
+		//images added at runtime are not part of the resources
+		if (holders.values()
+				   .stream()
+				   .anyMatch(Holder::isDynamic))
+			return 0;
+
+		List<Holder> list = holders.values()
+								   .stream()
+								   .sorted(Comparator.comparing(Holder::cacheName))
+								   .collect(Collectors.toList());
+		List<Future<Long>> hashes = Lists.newArrayListWithCapacity(list.size());
+		for (Holder holder : list)
+			hashes.add(executor.submit(() -> holder.contentHash(resourceManager)));
+
+		CRC32 crc = new CRC32();
+		crc.update((AtlasCache.VERSION + ";" + Minecraft.getGLMaximumTextureSize() + ";" + packing).getBytes(StandardCharsets.UTF_8));
+		try
+		{
+			for (int i = 0; i < list.size(); i++)
+				crc.update((list.get(i)
+								.cacheName() + ";" + hashes.get(i)
+														   .get()).getBytes(StandardCharsets.UTF_8));
+		}
+		catch (InterruptedException | ExecutionException e)
+		{
+			EGO.log.error("Failed to compute GUI atlas cache key.", e);
+			return 0;
+		}
+		return ((long) list.size() << 32) | crc.getValue();
+	}
+
+	/**
+	 * Uploads the cached atlas and places the icons.
+	 *
+	 * @param cache the cache
+	 * @return true, if the cache matched the registered icons
+	 */
+	private boolean loadFromCache(AtlasCache cache)
+	{
+		if (cache == null || cache.icons()
+								  .size() != holders.size() || !cache.icons()
+																	 .keySet()
+																	 .containsAll(holders.keySet()))
+			return false;
+
+		pageCount = cache.pages()
+						 .size();
+		for (int i = 0; i < pageCount; i++)
+		{
+			AtlasCache.Page page = cache.pages()
+										.get(i);
+			allocatePage(i, page.width(), page.height());
+			TextureUtil.uploadTextureMipmap(new int[][] { page.pixels() }, page.width(), page.height(), 0, 0, false, false);
+			EGO.log.info("Loaded: {}x{} atlas page {} for GUIs from cache", page.width(), page.height(), i);
+		}
+
+		for (Holder holder : holders.values())
+			holder.restore(cache.icons()
+								.get(holder.icon()
+										   .location()));
+		return true;
+	}
+
+	/**
+	 * Copies the stitched holders into an {@link AtlasCache}.
+	 *
+	 * @return the atlas cache
+	 */
+	private AtlasCache toCache()
+	{
+		List<AtlasCache.Page> cachePages = Lists.newArrayListWithCapacity(pageCount);
+		for (int i = 0; i < pageCount; i++)
+		{
+			GuiTexture pageTexture = texture(i);
+			cachePages.add(new AtlasCache.Page(pageTexture.width(),
+											   pageTexture.height(),
+											   new int[pageTexture.width() * pageTexture.height()]));
+		}
+
+		Map<ResourceLocation, int[]> icons = Maps.newHashMap();
+		for (Holder holder : holders.values())
+		{
+			int[] data = holder.textureData();
+			if (data == null)
+			{
+				icons.put(holder.icon()
+								.location(), new int[] { 0, 0, 0, -1, -1 });
+				continue;
+			}
+
+			AtlasCache.Page page = cachePages.get(holder.page());
+			for (int row = 0; row < holder.height(); row++)
+				System.arraycopy(data,
+								 row * holder.width(),
+								 page.pixels(),
+								 (holder.y() + row) * page.width() + holder.x(),
+								 holder.width());
+			icons.put(holder.icon()
+							.location(), new int[] { holder.page(), holder.x(), holder.y(), holder.width(), holder.height() });
+		}
+		return new AtlasCache(cachePages, icons);
+	}
+
+	/**
+	 * Decodes the textures of the holders in parallel on a bounded worker pool, and waits for all of them.<br>
+	 * Progress is reported from the calling thread, in registration order.
+	 *
+	 * @param resourceManager the resource manager
+	 * @param executor the executor
+	 */
+	private void loadHolders(IResourceManager resourceManager, ExecutorService executor)
+	{
+		List<Holder> list = Lists.newArrayList(holders.values());
+		List<Future<?>> futures = Lists.newArrayListWithCapacity(list.size());
+		for (Holder holder : list)
+			futures.add(executor.submit(() -> holder.loadTexture(resourceManager)));
+
+		ProgressBar bar = ProgressManager.push("Gui Texture loading", list.size());
+		for (int i = 0; i < list.size(); i++)
+		{
+			Holder holder = list.get(i);
+			try
+			{
+				futures.get(i)
+					   .get();
+			}
+			catch (InterruptedException | ExecutionException e)
+			{
+				EGO.log.error("Failed to load texture for GUI atlas : {}", holder.icon()
+																				  .location(), e);
+			}
+			bar.step(holder.toString());
+		}
+		ProgressManager.pop(bar);
 	}
 
 	@Override
@@ -160,6 +595,7 @@ public class Atlas implements ITextureObject
 
 	public void deleteGlTexture()
 	{
+		pages.forEach(Page::deleteGlTexture);
 		if (glTextureId == -1)
 			return;
 
@@ -180,6 +616,55 @@ public class Atlas implements ITextureObject
 		registeredAtlas.forEach(Atlas::init);
 	}
 
+	/**
+	 * Additional texture of the {@link Atlas}.<br>
+	 * Its content is uploaded by the atlas, and its {@link GuiTexture} binds it by its GL id. It is not registered in the
+	 * {@link net.minecraft.client.renderer.texture.TextureManager}, as pages are created while the atlas is loaded during a resource
+	 * reload, when the texture manager can't be modified.
+	 */
+	@SideOnly(Side.CLIENT)
+	private class Page
+	{
+		private final GuiTexture texture;
+		private int glTextureId = -1;
+
+		public Page(int index)
+		{
+			texture = new GuiTexture(new ResourceLocation(EGO.modid, name + "_" + index))
+			{
+				@Override
+				public void bind()
+				{
+					GlStateManager.bindTexture(getGlTextureId());
+				}
+
+				@Override
+				public void delete()
+				{
+					deleteGlTexture();
+				}
+			};
+		}
+
+		public int getGlTextureId()
+		{
+			if (glTextureId != -1)
+				return glTextureId;
+
+			glTextureId = TextureUtil.glGenTextures();
+			return glTextureId;
+		}
+
+		public void deleteGlTexture()
+		{
+			if (glTextureId == -1)
+				return;
+
+			TextureUtil.deleteTexture(glTextureId);
+			glTextureId = -1;
+		}
+	}
+
 	@SideOnly(Side.CLIENT)
 	public class Holder implements Comparable<Holder>
 	{
@@ -189,6 +674,11 @@ public class Atlas implements ITextureObject
 		private int y;
 		private int width;
 		private int height;
+		private int page;
+		/** Whether the icon has a place in the atlas. */
+		private boolean stitched;
+		/** Whether the texture data was set at runtime instead of being read from the resources. */
+		private boolean dynamic;
 
 		private ResourceLocation sub;
 		private int subX;
@@ -199,6 +689,20 @@ public class Atlas implements ITextureObject
 			this.icon = icon;
 		}
 
+		/**
+		 * Instantiates a new {@link Holder} of the specified size, without texture data.
+		 *
+		 * @param icon the icon
+		 * @param width the width
+		 * @param height the height
+		 */
+		Holder(GuiIcon icon, int width, int height)
+		{
+			this(icon);
+			this.width = width;
+			this.height = height;
+		}
+
 		public void subOf(ResourceLocation sub, int x, int y, int w, int h)
 		{
 			this.sub = sub;
@@ -251,6 +755,36 @@ public class Atlas implements ITextureObject
 			return textureData;
 		}
 
+		public int page()
+		{
+			return page;
+		}
+
+		public boolean isStitched()
+		{
+			return stitched;
+		}
+
+		public boolean isDynamic()
+		{
+			return dynamic;
+		}
+
+		/**
+		 * Sets the texture data of this {@link Holder} from an image. It will be kept across reloads.
+		 *
+		 * @param img the image
+		 */
+		public void setImage(BufferedImage img)
+		{
+			dynamic = true;
+			stitched = false;
+			sub = null;
+			width = img.getWidth();
+			height = img.getHeight();
+			textureData = img.getRGB(0, 0, width, height, null, 0, width);
+		}
+
 		public void setPosition(int x, int y)
 		{
 			this.x = x;
@@ -259,6 +793,9 @@ public class Atlas implements ITextureObject
 
 		public void loadTexture(IResourceManager manager)
 		{
+			if (dynamic)
+				return;
+
 			try (IResource res = manager.getResource(sub != null ? sub : icon.location()))
 			{
 				BufferedImage img = TextureUtil.readBufferedImage(res.getInputStream());
@@ -276,8 +813,84 @@ public class Atlas implements ITextureObject
 			}
 		}
 
-		public void upload(int atlasWidth, int atlasHeight)
+		/**
+		 * Gets the name identifying this {@link Holder} in the cache key.
+		 *
+		 * @return the string
+		 */
+		public String cacheName()
+		{
+			String name = icon.location()
+							  .toString();
+			if (sub != null)
+				name += "|" + sub + "," + subX + "," + subY + "," + width + "," + height;
+			return name;
+		}
+
+		/**
+		 * Computes the hash of the resource pack and content of the resource for this {@link Holder}.
+		 *
+		 * @param manager the manager
+		 * @return the hash, 0 if the resource could not be read
+		 */
+		public long contentHash(IResourceManager manager)
+		{
+			try (IResource res = getResource(manager))
+			{
+				CRC32 crc = new CRC32();
+				crc.update(res.getResourcePackName()
+							  .getBytes(StandardCharsets.UTF_8));
+				crc.update(IOUtils.toByteArray(res.getInputStream()));
+				return crc.getValue();
+			}
+			catch (IOException e)
+			{
+				return 0;
+			}
+		}
+
+		/**
+		 * Places this {@link Holder} from the cached position and size.
+		 *
+		 * @param cached page, x, y, width, height, width being -1 if the texture failed to load
+		 */
+		public void restore(int[] cached)
+		{
+			textureData = null;
+			stitched = cached[3] >= 0;
+			if (!stitched)
+			{
+				icon.stitch(null, 0, 0, 0, 0);
+				return;
+			}
+
+			page = cached[0];
+			x = cached[1];
+			y = cached[2];
+			width = cached[3];
+			height = cached[4];
+			icon.stitch(texture(page), x, y, width, height);
+		}
+
+		/**
+		 * Drops the texture data of this {@link Holder}, its icon won't be rendered.
+		 */
+		public void discard()
+		{
+			textureData = null;
+			stitched = false;
+			icon.stitch(null, 0, 0, 0, 0);
+		}
+
+		/**
+		 * Uploads the texture data to the bound texture of the page, and stitches the icon to that page.
+		 *
+		 * @param page the page
+		 */
+		public void upload(int page)
 		{
+			this.page = page;
+			stitched = textureData != null;
 			if (textureData == null)
 			{
 				icon.stitch(null, 0, 0, 0, 0);
@@ -288,7 +901,7 @@ public class Atlas implements ITextureObject
 			data[0] = textureData;
 			TextureUtil.uploadTextureMipmap(data, width, height, x, y, false, false);
 
-			icon.stitch(texture, x, y, width, height);
+			icon.stitch(texture(page), x, y, width, height);
 		}
 
 		@Override
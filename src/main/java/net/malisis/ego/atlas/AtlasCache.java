@@ -0,0 +1,234 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.ego.atlas;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import net.malisis.ego.EGO;
+import net.minecraft.util.ResourceLocation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Stitched {@link Atlas} stored on disk.<br>
+ * The file contains a header (magic, version, key, size of each page, icon count), the page, position and size of each icon, and the
+ * pixels of every page. It is only valid for the key it was written with, which identifies the registered icons and the content of their resources.
+ *
+ * @author Ordinastie
+ */
+public class AtlasCache
+{
+	/** "EGOA" */
+	private static final int MAGIC = 0x45474F41;
+	/** Version of the format, to increment when the layout changes. */
+	public static final int VERSION = 2;
+
+	private final List<Page> pages;
+	/** Page, position and size of each icon, width is -1 for icons that failed to load. */
+	private final Map<ResourceLocation, int[]> icons;
+
+	public AtlasCache(List<Page> pages, Map<ResourceLocation, int[]> icons)
+	{
+		this.pages = pages;
+		this.icons = icons;
+	}
+
+	public List<Page> pages()
+	{
+		return pages;
+	}
+
+	public Map<ResourceLocation, int[]> icons()
+	{
+		return icons;
+	}
+
+	/**
+	 * Gets the cache file for the atlas.
+	 *
+	 * @param name the name of the atlas
+	 * @return the file
+	 */
+	public static File file(String name)
+	{
+		return new File("ego/atlas/" + name.replace('/', '_') + ".bin");
+	}
+
+	/**
+	 * Reads the cache file.<br>
+	 * Returns null if the file does not exist, was written for another key, or is corrupted.
+	 *
+	 * @param file the file
+	 * @param key the key
+	 * @return the atlas cache
+	 */
+	public static AtlasCache read(File file, long key)
+	{
+		if (!file.exists())
+			return null;
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			ByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != key)
+				return null;
+
+			int pageCount = buffer.getInt();
+			List<Page> pages = Lists.newArrayListWithCapacity(pageCount);
+			long size = 0;
+			for (int i = 0; i < pageCount; i++)
+			{
+				Page page = new Page(buffer.getInt(), buffer.getInt(), null);
+				size += (long) page.width * page.height * 4;
+				pages.add(page);
+			}
+
+			int count = buffer.getInt();
+			Map<ResourceLocation, int[]> icons = Maps.newHashMap();
+			for (int i = 0; i < count; i++)
+			{
+				byte[] name = new byte[buffer.getShort() & 0xFFFF];
+				buffer.get(name);
+				int[] icon = new int[] { buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt() };
+				icons.put(new ResourceLocation(new String(name, StandardCharsets.UTF_8)), icon);
+			}
+
+			if (buffer.remaining() != size)
+				return null;
+			IntBuffer data = buffer.asIntBuffer();
+			for (Page page : pages)
+				data.get(page.pixels = new int[page.width * page.height]);
+
+			return new AtlasCache(pages, icons);
+		}
+		catch (IOException | RuntimeException e)
+		{
+			EGO.log.warn("Failed to read atlas cache {}.", file.getName(), e);
+			return null;
+		}
+	}
+
+	/**
+	 * Writes this {@link AtlasCache} to the file.
+	 *
+	 * @param file the file
+	 * @param key the key
+	 */
+	public void write(File file, long key)
+	{
+		int headerSize = 4 + 4 + 8 + 4 + pages.size() * 8 + 4;
+		for (ResourceLocation rl : icons.keySet())
+			headerSize += 2 + rl.toString()
+								.getBytes(StandardCharsets.UTF_8).length + 5 * 4;
+
+		ByteBuffer header = ByteBuffer.allocate(headerSize);
+		header.putInt(MAGIC)
+			  .putInt(VERSION)
+			  .putLong(key)
+			  .putInt(pages.size());
+		for (Page page : pages)
+			header.putInt(page.width)
+				  .putInt(page.height);
+		header.putInt(icons.size());
+		for (Entry<ResourceLocation, int[]> entry : icons.entrySet())
+		{
+			byte[] name = entry.getKey()
+							   .toString()
+							   .getBytes(StandardCharsets.UTF_8);
+			header.putShort((short) name.length)
+				  .put(name);
+			for (int i : entry.getValue())
+				header.putInt(i);
+		}
+		header.flip();
+
+		int size = pages.stream()
+						.mapToInt(p -> p.pixels.length)
+						.sum();
+		ByteBuffer data = ByteBuffer.allocate(size * 4);
+		IntBuffer pixels = data.asIntBuffer();
+		for (Page page : pages)
+			pixels.put(page.pixels);
+
+		file.getParentFile()
+			.mkdirs();
+		try (FileChannel channel = FileChannel.open(file.toPath(),
+													StandardOpenOption.CREATE,
+													StandardOpenOption.WRITE,
+													StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			while (header.hasRemaining())
+				channel.write(header);
+			while (data.hasRemaining())
+				channel.write(data);
+		}
+		catch (IOException e)
+		{
+			EGO.log.error("Failed to write atlas cache {}.", file.getName(), e);
+		}
+	}
+
+	/**
+	 * Size and pixels of one page of the atlas.
+	 */
+	public static class Page
+	{
+		private final int width;
+		private final int height;
+		private int[] pixels;
+
+		public Page(int width, int height, int[] pixels)
+		{
+			this.width = width;
+			this.height = height;
+			this.pixels = pixels;
+		}
+
+		public int width()
+		{
+			return width;
+		}
+
+		public int height()
+		{
+			return height;
+		}
+
+		public int[] pixels()
+		{
+			return pixels;
+		}
+	}
+}
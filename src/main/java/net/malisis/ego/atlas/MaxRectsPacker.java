@@ -0,0 +1,279 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.ego.atlas;
+
+import com.google.common.collect.Lists;
+import net.malisis.ego.atlas.Atlas.Holder;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * MaxRects packer using the Best Short Side Fit heuristic.<br>
+ * Keeps track of all the maximal free rectangles of the bin, and places each {@link Holder} in the free rectangle that leaves the
+ * smallest leftover on its shortest side.<br>
+ * Also used by {@link Atlas} as the free list of a page to insert and release icons after the atlas was stitched, and by the font glyph
+ * atlas to pack the glyphs generated on demand.
+ *
+ * @author Ordinastie
+ */
+@SideOnly(Side.CLIENT)
+public class MaxRectsPacker implements Stitcher.Packer
+{
+	private final List<Rect> free = Lists.newArrayList();
+	private final List<Rect> split = Lists.newArrayList();
+	private int width;
+	private int height;
+
+	@Override
+	public boolean pack(List<Holder> holders, int width, int height, @Nullable List<Holder> unplaced)
+	{
+		reset(width, height);
+
+		for (Holder holder : holders)
+		{
+			int w = holder.width();
+			int h = holder.height();
+			if (w == 0 || h == 0)
+			{
+				holder.setPosition(0, 0);
+				continue;
+			}
+
+			Rect best = findBest(w, h);
+			if (best == null)
+			{
+				if (unplaced == null)
+					return false;
+				unplaced.add(holder);
+				continue;
+			}
+
+			holder.setPosition(best.x, best.y);
+			place(new Rect(best.x, best.y, w, h));
+		}
+		return true;
+	}
+
+	/**
+	 * Clears the bin, leaving a single free rectangle.
+	 *
+	 * @param width the width of the bin
+	 * @param height the height of the bin
+	 */
+	public void reset(int width, int height)
+	{
+		this.width = width;
+		this.height = height;
+		free.clear();
+		free.add(new Rect(0, 0, width, height));
+	}
+
+	/**
+	 * Extends the bin downward. The free rectangles touching the bottom edge grow with it.
+	 *
+	 * @param height the new height of the bin
+	 */
+	public void grow(int height)
+	{
+		if (height <= this.height)
+			return;
+
+		int added = height - this.height;
+		for (int i = 0; i < free.size(); i++)
+		{
+			Rect rect = free.get(i);
+			if (rect.bottom() == this.height)
+				free.set(i, new Rect(rect.x, rect.y, rect.width, rect.height + added));
+		}
+
+		Rect strip = new Rect(0, this.height, width, added);
+		if (free.stream()
+				.noneMatch(r -> r.contains(strip)))
+			free.add(strip);
+		this.height = height;
+	}
+
+	/**
+	 * Marks the area as used.
+	 *
+	 * @param x the x
+	 * @param y the y
+	 * @param width the width
+	 * @param height the height
+	 */
+	public void occupy(int x, int y, int width, int height)
+	{
+		if (width > 0 && height > 0)
+			place(new Rect(x, y, width, height));
+	}
+
+	/**
+	 * Finds a free area for a rectangle of the specified size and marks it as used.
+	 *
+	 * @param width the width
+	 * @param height the height
+	 * @return the x and y position of the area, or null if there is no space left
+	 */
+	@Nullable
+	public int[] insert(int width, int height)
+	{
+		Rect best = findBest(width, height);
+		if (best == null)
+			return null;
+
+		place(new Rect(best.x, best.y, width, height));
+		return new int[] { best.x, best.y };
+	}
+
+	/**
+	 * Gives back the area to the free rectangles.<br>
+	 * The area is not merged with the free space around it, so the bin fragments until it is packed again.
+	 *
+	 * @param x the x
+	 * @param y the y
+	 * @param width the width
+	 * @param height the height
+	 */
+	public void release(int x, int y, int width, int height)
+	{
+		if (width <= 0 || height <= 0)
+			return;
+
+		Rect rect = new Rect(x, y, width, height);
+		if (free.stream()
+				.anyMatch(r -> r.contains(rect)))
+			return;
+		free.removeIf(rect::contains);
+		free.add(rect);
+	}
+
+	/**
+	 * Finds the free rectangle that leaves the smallest leftover on its shortest side.
+	 *
+	 * @param w the width
+	 * @param h the height
+	 * @return the rectangle, or null if none is big enough
+	 */
+	private Rect findBest(int w, int h)
+	{
+		Rect best = null;
+		int bestShort = Integer.MAX_VALUE;
+		int bestLong = Integer.MAX_VALUE;
+		for (Rect rect : free)
+		{
+			if (rect.width < w || rect.height < h)
+				continue;
+
+			int leftoverX = rect.width - w;
+			int leftoverY = rect.height - h;
+			int shortSide = Math.min(leftoverX, leftoverY);
+			int longSide = Math.max(leftoverX, leftoverY);
+			if (shortSide < bestShort || (shortSide == bestShort && longSide < bestLong))
+			{
+				best = rect;
+				bestShort = shortSide;
+				bestLong = longSide;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Splits every free rectangle intersecting the placed one, then removes the free rectangles contained in another.
+	 *
+	 * @param used the placed rectangle
+	 */
+	private void place(Rect used)
+	{
+		split.clear();
+		for (int i = free.size() - 1; i >= 0; i--)
+		{
+			Rect rect = free.get(i);
+			if (!rect.intersects(used))
+				continue;
+
+			free.remove(i);
+			if (used.x > rect.x)
+				split.add(new Rect(rect.x, rect.y, used.x - rect.x, rect.height));
+			if (used.right() < rect.right())
+				split.add(new Rect(used.right(), rect.y, rect.right() - used.right(), rect.height));
+			if (used.y > rect.y)
+				split.add(new Rect(rect.x, rect.y, rect.width, used.y - rect.y));
+			if (used.bottom() < rect.bottom())
+				split.add(new Rect(rect.x, used.bottom(), rect.width, rect.bottom() - used.bottom()));
+		}
+
+		//only the new rectangles can be contained in another one
+		for (Rect rect : split)
+		{
+			if (free.stream()
+					.noneMatch(r -> r.contains(rect)))
+			{
+				free.removeIf(rect::contains);
+				free.add(rect);
+			}
+		}
+	}
+
+	private static class Rect
+	{
+		private final int x;
+		private final int y;
+		private final int width;
+		private final int height;
+
+		private Rect(int x, int y, int width, int height)
+		{
+			this.x = x;
+			this.y = y;
+			this.width = width;
+			this.height = height;
+		}
+
+		private int right()
+		{
+			return x + width;
+		}
+
+		private int bottom()
+		{
+			return y + height;
+		}
+
+		private boolean intersects(Rect other)
+		{
+			return x < other.right() && other.x < right() && y < other.bottom() && other.y < bottom();
+		}
+
+		private boolean contains(Rect other)
+		{
+			return other.x >= x && other.y >= y && other.right() <= right() && other.bottom() <= bottom();
+		}
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.ego.atlas;
+
+import com.google.common.collect.Lists;
+import net.malisis.ego.atlas.Atlas.Holder;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * Skyline packer using the Bottom-Left heuristic.<br>
+ * Only keeps track of the top edge of the placed rectangles, and places each {@link Holder} at the lowest (then leftmost) position of
+ * that edge where it fits. Faster than {@link MaxRectsPacker}, but cannot fill the holes left under the skyline.
+ *
+ * @author Ordinastie
+ */
+@SideOnly(Side.CLIENT)
+class SkylinePacker implements Stitcher.Packer
+{
+	/** Segments of the skyline, ordered by x : {x, y, width}. */
+	private final List<int[]> skyline = Lists.newArrayList();
+
+	@Override
+	public boolean pack(List<Holder> holders, int width, int height, @Nullable List<Holder> unplaced)
+	{
+		skyline.clear();
+		skyline.add(new int[] { 0, 0, width });
+
+		for (Holder holder : holders)
+		{
+			int w = holder.width();
+			int h = holder.height();
+			if (w == 0 || h == 0)
+			{
+				holder.setPosition(0, 0);
+				continue;
+			}
+
+			int bestIndex = -1;
+			int bestY = Integer.MAX_VALUE;
+			for (int i = 0; i < skyline.size(); i++)
+			{
+				int y = fit(i, w, width);
+				if (y >= 0 && y + h <= height && y < bestY)
+				{
+					bestIndex = i;
+					bestY = y;
+				}
+			}
+
+			if (bestIndex == -1)
+			{
+				if (unplaced == null)
+					return false;
+				unplaced.add(holder);
+				continue;
+			}
+
+			int x = skyline.get(bestIndex)[0];
+			holder.setPosition(x, bestY);
+			place(bestIndex, x, bestY + h, w);
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the y position for a rectangle of width {@code w} placed at the start of the segment at {@code index}.
+	 *
+	 * @param index the index of the segment
+	 * @param w the width of the rectangle
+	 * @param binWidth the width of the bin
+	 * @return the y position, -1 if the rectangle goes past the bin
+	 */
+	private int fit(int index, int w, int binWidth)
+	{
+		int x = skyline.get(index)[0];
+		if (x + w > binWidth)
+			return -1;
+
+		int y = 0;
+		int remaining = w;
+		for (int i = index; remaining > 0; i++)
+		{
+			int[] segment = skyline.get(i);
+			y = Math.max(y, segment[1]);
+			remaining -= segment[2];
+		}
+		return y;
+	}
+
+	/**
+	 * Adds a new segment to the skyline, shrinking or removing the segments it covers and merging segments of the same height.
+	 *
+	 * @param index the index of the first segment covered
+	 * @param x the x
+	 * @param y the y of the new segment
+	 * @param w the width of the new segment
+	 */
+	private void place(int index, int x, int y, int w)
+	{
+		skyline.add(index, new int[] { x, y, w });
+		int right = x + w;
+		for (int i = index + 1; i < skyline.size(); )
+		{
+			int[] segment = skyline.get(i);
+			if (segment[0] >= right)
+				break;
+
+			int segmentRight = segment[0] + segment[2];
+			if (segmentRight <= right)
+				skyline.remove(i);
+			else
+			{
+				segment[2] = segmentRight - right;
+				segment[0] = right;
+				break;
+			}
+		}
+
+		for (int i = 0; i < skyline.size() - 1; )
+		{
+			int[] segment = skyline.get(i);
+			int[] next = skyline.get(i + 1);
+			if (segment[1] == next[1])
+			{
+				segment[2] += next[2];
+				skyline.remove(i + 1);
+			}
+			else
+				i++;
+		}
+	}
+}
@@ -1,28 +1,46 @@
 package net.malisis.ego.atlas;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import net.malisis.ego.EGO;
 import net.malisis.ego.atlas.Atlas.Holder;
-import net.minecraft.util.ResourceLocation;
-import net.minecraft.util.math.MathHelper;
 import net.minecraftforge.fml.common.ProgressManager;
 import net.minecraftforge.fml.common.ProgressManager.ProgressBar;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
 
 @SideOnly(Side.CLIENT)
 public class Stitcher
 {
+	/** Alignment of the page sizes. Pages don't need to be a power of two, but are kept to multiples of this value. */
+	public static final int ALIGNMENT = 16;
+
 	private Node root = new Node(0, 0, 256, 256);
 	private int width;
 	private int height;
+	/** Bounds of the placed icons. */
+	private int packedWidth;
+	private int packedHeight;
 	private final int maxWidth;
 	private final int maxHeight;
+	private final Packing packing;
+	/** Area covered by the icons. */
+	private long usedArea;
 
 	public Stitcher(int maxWidth, int maxHeight)
+	{
+		this(maxWidth, maxHeight, Packing.NODE);
+	}
+
+	public Stitcher(int maxWidth, int maxHeight, Packing packing)
 	{
 		int size = 32;
 		root = new Node(0, 0, size, size);
@@ -30,6 +48,7 @@ public class Stitcher
 		this.height = size;
 		this.maxWidth = maxWidth;
 		this.maxHeight = maxHeight;
+		this.packing = packing;
 	}
 
 	public int width()
@@ -42,11 +61,152 @@ public class Stitcher
 		return this.height;
 	}
 
-	public void stitch(Map<ResourceLocation, Holder> holders)
+	/**
+	 * Gets the width of the area covered by the placed icons, before alignment.
+	 *
+	 * @return the packed width
+	 */
+	public int packedWidth()
+	{
+		return packedWidth;
+	}
+
+	/**
+	 * Gets the height of the area covered by the placed icons, before alignment.
+	 *
+	 * @return the packed height
+	 */
+	public int packedHeight()
+	{
+		return packedHeight;
+	}
+
+	/**
+	 * Gets the ratio of the packed area actually covered by icons.
+	 *
+	 * @return the efficiency, between 0 and 1
+	 */
+	public float efficiency()
+	{
+		return packedWidth * packedHeight == 0 ? 0 : (float) usedArea / ((long) packedWidth * packedHeight);
+	}
+
+	/**
+	 * Gets the ratio of the page area actually covered by icons.
+	 *
+	 * @return the efficiency, between 0 and 1
+	 */
+	public float pageEfficiency()
+	{
+		return width * height == 0 ? 0 : (float) usedArea / ((long) width * height);
+	}
+
+	/**
+	 * Places the holders in the atlas, without going over the maximum size.<br>
+	 * The holders that could not be placed are returned so they can go in another atlas page.
+	 *
+	 * @param holders the holders
+	 * @return the holders that did not fit
+	 */
+	public List<Holder> stitch(Collection<Holder> holders)
+	{
+		List<Holder> unplaced = Lists.newArrayList();
+		if (packing.packer != null)
+			stitchBin(Lists.newArrayList(holders), packing.packer.get(), unplaced);
+		else
+			stitchNodes(holders, unplaced);
+
+		Set<Holder> skipped = Sets.newHashSet(unplaced);
+		usedArea = 0;
+		packedWidth = 0;
+		packedHeight = 0;
+		for (Holder holder : holders)
+		{
+			if (skipped.contains(holder))
+				continue;
+			usedArea += (long) holder.width() * holder.height();
+			packedWidth = Math.max(packedWidth, holder.x() + holder.width());
+			packedHeight = Math.max(packedHeight, holder.y() + holder.height());
+		}
+		width = align(Math.max(packedWidth, 1), maxWidth);
+		height = align(Math.max(packedHeight, 1), maxHeight);
+		return unplaced;
+	}
+
+	/**
+	 * Rounds the size up to the next multiple of {@link #ALIGNMENT}, without going over the maximum.
+	 *
+	 * @param size the size
+	 * @param max the maximum size
+	 * @return the aligned size
+	 */
+	private static int align(int size, int max)
+	{
+		return Math.min(max, (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT);
+	}
+
+	/**
+	 * Gets the size to try after the bin of size {@code size} was too small, about a quarter larger.
+	 *
+	 * @param size the current size
+	 * @param max the maximum size
+	 * @return the grown size
+	 */
+	private static int grow(int size, int max)
+	{
+		return align(size + Math.max(ALIGNMENT, size / 4), max);
+	}
+
+	/**
+	 * Packs the holders in the smallest bin that fits them all, starting from the total area of the icons and growing the smallest side by
+	 * a quarter when they don't fit. If they still don't fit at the maximum size, places as many as possible.<br>
+	 * The page is then sized to the bounds of the placed icons, aligned to {@link #ALIGNMENT}.
+	 *
+	 * @param holders the holders
+	 * @param packer the packer
+	 * @param unplaced the list to fill with the holders that could not be placed
+	 */
+	private void stitchBin(List<Holder> holders, Packer packer, List<Holder> unplaced)
+	{
+		//big icons first give better results for both packers
+		holders.sort(Comparator.comparingInt((Holder h) -> Math.max(h.width(), h.height()))
+							   .thenComparingInt(h -> Math.min(h.width(), h.height()))
+							   .reversed()
+							   .thenComparing(Comparator.<Holder>naturalOrder()));
+
+		long area = 0;
+		int minWidth = 1, minHeight = 1;
+		for (Holder holder : holders)
+		{
+			area += (long) holder.width() * holder.height();
+			minWidth = Math.min(Math.max(minWidth, holder.width()), maxWidth);
+			minHeight = Math.min(Math.max(minHeight, holder.height()), maxHeight);
+		}
+
+		int side = (int) Math.min(maxWidth, Math.ceil(Math.sqrt(area)));
+		int binWidth = align(Math.max(minWidth, side), maxWidth);
+		int binHeight = align(Math.max(minHeight, (int) Math.min(maxHeight, area / binWidth)), maxHeight);
+		while (!packer.pack(holders, binWidth, binHeight, null))
+		{
+			if (binHeight < binWidth && binHeight < maxHeight)
+				binHeight = grow(binHeight, maxHeight);
+			else if (binWidth < maxWidth)
+				binWidth = grow(binWidth, maxWidth);
+			else if (binHeight < maxHeight)
+				binHeight = grow(binHeight, maxHeight);
+			else
+			{
+				packer.pack(holders, binWidth, binHeight, unplaced);
+				break;
+			}
+		}
+	}
+
+	private void stitchNodes(Collection<Holder> holders, List<Holder> unplaced)
 	{
 		ProgressBar bar = ProgressManager.push("Gui Texture stitching", holders.size());
-		holders.values()
-			   .stream()
+		holders.stream()
+			   .filter(this::fits)
 			   .sorted()
 			   .findFirst()
 			   .ifPresent(h -> {
@@ -55,14 +215,19 @@ public class Stitcher
 				   height = h.height();
 			   });
 
-		holders.values()
-			   .stream()
+		holders.stream()
 			   .sorted()
 			   .forEach(holder -> {
 				   bar.step(holder.toString());
 
 				   //   EGO.log.info("Processing {}", holder);
 
+				   if (!fits(holder))
+				   {
+					   unplaced.add(holder);
+					   return;
+				   }
+
 				   Node node = findNode(root, holder.width(), holder.height());
 				   if (node != null)
 					   node.split(holder.width(), holder.height());
@@ -75,14 +240,17 @@ public class Stitcher
 					   //	   EGO.log.info("Added {},{} ({}x{})", node.x, node.y, node.width, node.height);
 				   }
 				   else
-					   EGO.log.error("No place to fit {}.", holder);
+					   unplaced.add(holder);
 			   });
 
-		this.width = MathHelper.smallestEncompassingPowerOfTwo(this.width);
-		this.height = MathHelper.smallestEncompassingPowerOfTwo(this.height);
 		net.minecraftforge.fml.common.ProgressManager.pop(bar);
 	}
 
+	private boolean fits(Holder holder)
+	{
+		return holder.width() <= maxWidth && holder.height() <= maxHeight;
+	}
+
 	private Node findNode(Node root, int width, int height)
 	{
 		//current node already used, check right, then down
@@ -104,8 +272,8 @@ public class Stitcher
 
 	private Node growNode(Node root, int width, int height)
 	{
-		boolean canGrowDown = width <= root.width;
-		boolean canGrowRight = height <= root.height;
+		boolean canGrowDown = width <= root.width && root.height + height <= maxHeight;
+		boolean canGrowRight = height <= root.height && root.width + width <= maxWidth;
 
 		boolean shouldGrowRight = canGrowRight && (root.height >= root.width + width); // attempt to keep square-ish by growing right when
 		// height is much greater than width
@@ -152,6 +320,44 @@ public class Stitcher
 		return node;
 	}
 
+	/**
+	 * Algorithm used to place the icons in the atlas.
+	 */
+	public enum Packing
+	{
+		/** Binary tree growing right or down. */
+		NODE(null),
+		/** Maximal free rectangles, tightest packing. */
+		MAX_RECTS(MaxRectsPacker::new),
+		/** Bottom-left skyline, faster but leaves more holes. */
+		SKYLINE(SkylinePacker::new);
+
+		private final Supplier<Packer> packer;
+
+		Packing(Supplier<Packer> packer)
+		{
+			this.packer = packer;
+		}
+	}
+
+	/**
+	 * Packs holders into a fixed size bin.
+	 */
+	interface Packer
+	{
+		/**
+		 * Sets the position of each holder inside the bin, in the order of the list.<br>
+		 * If {@code unplaced} is null, stops at the first holder that does not fit, otherwise adds it to the list and keeps going.
+		 *
+		 * @param holders the holders
+		 * @param width the width of the bin
+		 * @param height the height of the bin
+		 * @param unplaced the list to fill with the holders that did not fit, or null
+		 * @return false, if a holder did not fit and {@code unplaced} is null
+		 */
+		boolean pack(List<Holder> holders, int width, int height, @Nullable List<Holder> unplaced);
+	}
+
 	public static class Node
 	{
 		public final int x;
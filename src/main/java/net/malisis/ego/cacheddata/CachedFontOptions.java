@@ -49,6 +49,7 @@ public class CachedFontOptions implements ICachedData<FontOptions>
 	protected boolean lastBold;
 	protected float lastFontScale;
 	protected EGOFont lastFont;
+	protected int lastGlyphsVersion;
 
 	public CachedFontOptions(Supplier<FontOptions> getter)
 	{
@@ -86,11 +87,16 @@ public class CachedFontOptions implements ICachedData<FontOptions>
 	@Override
 	public boolean hasChanged()
 	{
-		boolean changed = lastBold != get().isBold() || lastFontScale != get().getFontScale() || lastFont != get().getFont();
+		FontOptions.Snapshot options = get().snapshot();
+		EGOFont font = options.getFont();
+		int glyphsVersion = font.glyphsVersion();
+		boolean changed = lastBold != options.isBold() || lastFontScale != options.getFontScale() || lastFont != font
+				|| lastGlyphsVersion != glyphsVersion;
 
-		lastBold = get().isBold();
-		lastFontScale = get().getFontScale();
-		lastFont = get().getFont();
+		lastBold = options.isBold();
+		lastFontScale = options.getFontScale();
+		lastFont = font;
+		lastGlyphsVersion = glyphsVersion;
 
 		return changed;
 	}
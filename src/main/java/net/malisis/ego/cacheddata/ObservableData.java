@@ -0,0 +1,127 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.ego.cacheddata;
+
+import static com.google.common.base.Preconditions.*;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Push-based {@link ICachedData}.<br>
+ * Instead of being polled through a supplier, the value is set with {@link #set(Object)}, which notifies the registered listeners when the
+ * value actually changes.<br>
+ * {@link #set(Object)} can be called from any thread, listeners are run on the calling thread.<br>
+ * Listeners are weakly referenced so that a long lived {@link ObservableData} does not keep its observers alive : they must be held
+ * by their owner for as long as they should be notified.
+ *
+ * @param <T> the generic type
+ * @author Ordinastie
+ */
+public class ObservableData<T> implements ICachedData<T>
+{
+	/** Current value. */
+	private volatile T value;
+	/** Whether the value was set since the last {@link #update()}. */
+	private final AtomicBoolean pending = new AtomicBoolean();
+	/** Whether the value changed during the last {@link #update()}. */
+	private boolean changed;
+	/** Listeners notified when the value changes. */
+	private final List<WeakReference<Runnable>> listeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Instantiates a new {@link ObservableData}.
+	 *
+	 * @param value the initial value
+	 */
+	public ObservableData(T value)
+	{
+		this.value = value;
+	}
+
+	@Override
+	public T get()
+	{
+		return value;
+	}
+
+	/**
+	 * Sets the value and notifies the listeners if it is different from the current one.
+	 *
+	 * @param value the value
+	 */
+	public void set(T value)
+	{
+		if (Objects.equals(this.value, value))
+			return;
+
+		this.value = value;
+		pending.set(true);
+		for (WeakReference<Runnable> ref : listeners)
+		{
+			Runnable listener = ref.get();
+			if (listener != null)
+				listener.run();
+			else
+				listeners.remove(ref);
+		}
+	}
+
+	/**
+	 * Registers a listener called every time the value changes.<br>
+	 * The listener is weakly referenced and is dropped once its owner is collected.
+	 *
+	 * @param listener the listener
+	 */
+	public void addListener(Runnable listener)
+	{
+		listeners.add(new WeakReference<>(checkNotNull(listener)));
+	}
+
+	/**
+	 * Unregisters a listener.
+	 *
+	 * @param listener the listener
+	 */
+	public void removeListener(Runnable listener)
+	{
+		listeners.removeIf(ref -> ref.get() == null || ref.get() == listener);
+	}
+
+	@Override
+	public void update()
+	{
+		changed = pending.getAndSet(false);
+	}
+
+	@Override
+	public boolean hasChanged()
+	{
+		return changed;
+	}
+}
@@ -27,6 +27,9 @@ package net.malisis.ego.command;
 import com.google.common.collect.Lists;
 import net.malisis.ego.EGO;
 import net.malisis.ego.GuiDemo;
+import net.malisis.ego.font.GlyphBenchmark;
+import net.malisis.ego.gui.render.shape.ShapeBenchmark;
+import net.malisis.ego.gui.text.TextBenchmark;
 import net.minecraft.command.CommandBase;
 import net.minecraft.command.CommandException;
 import net.minecraft.command.ICommandSender;
@@ -55,6 +58,12 @@ public class EGOCommand extends CommandBase
 	{
 		layeredCommand.registerCommand("demo", () -> new GuiDemo().display(true));
 		layeredCommand.registerCommand("version", () -> EGO.message("ego.commands.modversion", EGO.version));
+
+		LayeredCommand benchmark = new LayeredCommand("benchmark");
+		benchmark.registerCommand("text", TextBenchmark::run);
+		benchmark.registerCommand("glyphs", GlyphBenchmark::run);
+		benchmark.registerCommand("shape", ShapeBenchmark::run);
+		layeredCommand.registerCommand(benchmark.name(), benchmark);
 	}
 
 	@Override
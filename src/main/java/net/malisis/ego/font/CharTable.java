@@ -0,0 +1,92 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.ego.font;
+
+/**
+ * Table of {@link CharData} indexed by character.<br>
+ * The 65,536 characters are split in 256 pages of 256 characters, each page being allocated when a character of the page is first set.
+ *
+ * @author Ordinastie
+ */
+public class CharTable
+{
+	/** Number of characters per page. */
+	public static final int PAGE_SIZE = 256;
+
+	/** Pages of {@link CharData}, null until used. */
+	private final CharData[][] pages = new CharData[65536 / PAGE_SIZE][];
+
+	/**
+	 * Gets the {@link CharData} for the character.
+	 *
+	 * @param c the c
+	 * @return the char data, or null if not set
+	 */
+	public CharData get(char c)
+	{
+		CharData[] page = pages[c >>> 8];
+		return page != null ? page[c & 0xFF] : null;
+	}
+
+	/**
+	 * Sets the {@link CharData} for the character.
+	 *
+	 * @param c the c
+	 * @param data the data
+	 */
+	public void put(char c, CharData data)
+	{
+		page(c >>> 8)[c & 0xFF] = data;
+	}
+
+	/**
+	 * Checks whether the page was allocated.
+	 *
+	 * @param index the index of the page
+	 * @return true, if successful
+	 */
+	public boolean hasPage(int index)
+	{
+		return pages[index] != null;
+	}
+
+	/**
+	 * Gets the page of {@link CharData}, allocating it if needed.<br>
+	 * The returned array is backing this {@link CharTable}.
+	 *
+	 * @param index the index of the page
+	 * @return the page
+	 */
+	public CharData[] page(int index)
+	{
+		CharData[] page = pages[index];
+		if (page == null)
+		{
+			page = new CharData[PAGE_SIZE];
+			pages[index] = page;
+		}
+		return page;
+	}
+}
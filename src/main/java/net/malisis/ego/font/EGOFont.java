@@ -24,16 +24,17 @@
 
 package net.malisis.ego.font;
 
-import com.google.common.io.Files;
+import com.google.common.collect.Lists;
 import net.malisis.ego.EGO;
 import net.malisis.ego.gui.element.IClipable.ClipArea;
 import net.malisis.ego.gui.render.GuiRenderer;
+import net.malisis.ego.gui.render.GuiTexture;
 import net.malisis.ego.gui.text.GuiText;
 import net.minecraft.client.Minecraft;
-import net.minecraft.client.renderer.BufferBuilder;
-import net.minecraft.client.renderer.Tessellator;
-import net.minecraft.client.renderer.texture.DynamicTexture;
+import net.minecraft.client.renderer.GlStateManager;
+import net.minecraft.client.renderer.texture.TextureManager;
 import net.minecraft.util.ResourceLocation;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.lwjgl.opengl.GL11;
 
@@ -43,15 +44,18 @@ import java.awt.font.FontRenderContext;
 import java.awt.font.LineMetrics;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.Queue;
 import java.util.Random;
-
-import javax.imageio.ImageIO;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * @author Ordinastie
@@ -76,14 +80,39 @@ public class EGOFont
 	/** Options for the font **/
 	protected FontGeneratorOptions fontGeneratorOptions = FontGeneratorOptions.DEFAULT;
 	/** Data for each character **/
-	protected CharData[] charData = new CharData[256];
+	protected final CharTable charData = new CharTable();
 	/** ResourceLocation for the texture **/
 	protected ResourceLocation textureRl;
+	/** Texture bound through the {@link GuiRenderer} **/
+	protected GuiTexture texture;
 	/** Size of the texture (width and height) **/
 	protected int size;
 	/** Whether the currently drawn text is the shadow part **/
 	protected boolean drawingShadow = false;
 	protected float zIndex = 0f;
+	/** Renderer currently drawing the text **/
+	protected GuiRenderer renderer;
+	/** Texture bound before drawing the text **/
+	protected GuiTexture previousTexture;
+	/** Glyph run being built **/
+	protected GlyphRun run;
+
+	/** Executor rasterizing the glyph pages in the background. */
+	private static final ExecutorService glyphExecutor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "EGO glyph generator");
+		thread.setDaemon(true);
+		return thread;
+	});
+	/** Atlases holding the glyphs of the pages other than the first one. */
+	private final List<GlyphAtlas> atlases = Lists.newArrayList();
+	/** Textures for the glyphs of the pages other than the first one, indexed like the {@link CharTable}. */
+	protected final GuiTexture[][] glyphTextures = new GuiTexture[256][];
+	/** Whether each glyph page was requested. */
+	private final boolean[] requestedPages = new boolean[256];
+	/** Glyph pages rasterized and waiting to be uploaded on the client thread. */
+	private final Queue<GlyphPage> generatedPages = new ConcurrentLinkedQueue<>();
+	/** Incremented every time a glyph page is uploaded. */
+	private int glyphsVersion = 0;
 
 	private boolean loaded = false;
 
@@ -121,7 +150,6 @@ public class EGOFont
 		if (options != null)
 			fontGeneratorOptions = options;
 
-		loadCharacterData();
 		loaded = loadTexture(false);
 	}
 
@@ -138,45 +166,176 @@ public class EGOFont
 	public void generateTexture(boolean debug)
 	{
 		fontGeneratorOptions.debug = debug;
-		loadCharacterData();
 		loadTexture(true);
 	}
 
 	public CharData getCharData(char c)
 	{
-		if (c > charData.length)
-			c = '?';
-		return charData[c];
+		CharData cd = charData.get(c);
+		if (cd != null)
+			return cd;
+
+		requestPage(c >>> 8);
+		return charData.get('?');
+	}
+
+	/**
+	 * Gets the version of the glyphs of this {@link EGOFont}, incremented every time a new glyph page becomes available.<br>
+	 * Texts laid out with a previous version may have used the fallback glyph for characters now available.
+	 *
+	 * @return the version
+	 */
+	public int glyphsVersion()
+	{
+		uploadPages();
+		return glyphsVersion;
+	}
+
+	//#region Glyph pages
+	/**
+	 * Requests the rasterization of a page of glyphs in the background.<br>
+	 * Characters of the page fall back to '?' until the page is uploaded.
+	 *
+	 * @param page the page
+	 */
+	protected void requestPage(int page)
+	{
+		if (font == null || requestedPages[page])
+			return;
+
+		requestedPages[page] = true;
+		glyphExecutor.execute(() -> generatedPages.add(generatePage(page)));
+	}
+
+	/**
+	 * Creates the {@link CharData} for the displayable characters of a page, and draws them in a new image.<br>
+	 * Only the texels of the image are kept until they are uploaded. Called from the glyph generator thread.
+	 *
+	 * @param page the page
+	 * @return the glyph page
+	 */
+	private GlyphPage generatePage(int page)
+	{
+		FontRenderContext frc = new FontRenderContext(null, true, true);
+		CharData[] glyphs = new CharData[CharTable.PAGE_SIZE];
+		boolean empty = true;
+		for (int i = 0; i < glyphs.length; i++)
+		{
+			char c = (char) (page * CharTable.PAGE_SIZE + i);
+			if (!font.canDisplay(c))
+				continue;
+
+			String s = String.valueOf(c);
+			LineMetrics lm = font.getLineMetrics(s, frc);
+			Rectangle2D bounds = font.getStringBounds(s, frc);
+			glyphs[i] = new CharData(c, lm.getAscent(), (float) bounds.getWidth(), fontGeneratorOptions.fontSize);
+			empty = false;
+		}
+
+		if (empty)
+			return new GlyphPage(page, glyphs, null, 0);
+
+		BufferedImage img = new FontGenerator(font, glyphs, fontGeneratorOptions).generatePage();
+		return new GlyphPage(page, glyphs, FontCache.texels(img), img.getWidth());
+	}
+
+	/**
+	 * Uploads the glyph pages generated in the background into the {@link GlyphAtlas atlases}.<br>
+	 * Must be called from the client thread.
+	 */
+	protected void uploadPages()
+	{
+		if (generatedPages.isEmpty())
+			return;
+
+		//restore the binding afterwards so the GuiRenderer texture cache stays valid
+		int bound = GL11.glGetInteger(GL11.GL_TEXTURE_BINDING_2D);
+		GlyphPage page;
+		while ((page = generatedPages.poll()) != null)
+		{
+			if (page.texels != null)
+			{
+				GuiTexture[] textures = new GuiTexture[CharTable.PAGE_SIZE];
+				for (int i = 0; i < page.glyphs.length; i++)
+				{
+					CharData cd = page.glyphs[i];
+					if (cd == null)
+						continue;
+
+					textures[i] = addToAtlas(cd, page);
+					if (textures[i] != null)
+						charData.put(cd.getChar(), cd);
+				}
+				glyphTextures[page.index] = textures;
+			}
+			glyphsVersion++;
+		}
+		GlStateManager.bindTexture(bound);
+	}
+
+	/**
+	 * Adds the glyph to the last {@link GlyphAtlas}, or to a new one if it is full.
+	 *
+	 * @param cd the char data
+	 * @param page the page of the glyph
+	 * @return the texture of the atlas, or null if the glyph could not be added
+	 */
+	private GuiTexture addToAtlas(CharData cd, GlyphPage page)
+	{
+		GlyphAtlas atlas = atlases.isEmpty() ? null : atlases.get(atlases.size() - 1);
+		if (atlas != null)
+		{
+			atlas.bind();
+			if (atlas.add(cd, page.texels, page.size))
+				return atlas.texture();
+		}
+
+		atlas = new GlyphAtlas(font.getName() + "_glyphs_" + atlases.size());
+		atlases.add(atlas);
+		atlas.bind();
+		if (atlas.add(cd, page.texels, page.size))
+			return atlas.texture();
+
+		EGO.log.error("Glyph {} of {} is too large for the glyph atlas.", cd.getChar(), font.getName());
+		return null;
 	}
 
+	/**
+	 * Glyphs of a page rasterized in the background.
+	 */
+	private static class GlyphPage
+	{
+		private final int index;
+		private final CharData[] glyphs;
+		private final ByteBuffer texels;
+		private final int size;
+
+		private GlyphPage(int index, CharData[] glyphs, ByteBuffer texels, int size)
+		{
+			this.index = index;
+			this.glyphs = glyphs;
+			this.texels = texels;
+			this.size = size;
+		}
+	}
+	//#end Glyph pages
+
 	//#region Prepare/Clean
 	protected void prepare(GuiRenderer renderer, float x, float y, float z, FontOptions options)
 	{
-		renderer.next(GL11.GL_QUADS);
-
-		Minecraft.getMinecraft()
-				 .getTextureManager()
-				 .bindTexture(textureRl);
-		GL11.glPushMatrix();
-		GL11.glTranslatef(x, y, 0);
+		this.renderer = renderer;
+		previousTexture = renderer.getCurrentTexture();
+		renderer.bindTexture(texture);
 
 		zIndex = z;
 	}
 
-	protected void clean(GuiRenderer renderer, boolean isDrawing)
+	protected void clean(GuiRenderer renderer)
 	{
-		if (isDrawing)
-			renderer.next();
-		else
-			renderer.draw();
-
-		//		Minecraft.getMinecraft()
-		//				 .getTextureManager()
-		//				 .bindTexture(renderer.getDefaultTexture()
-		//									  .getResourceLocation());
-		renderer.forceRebind();
-		GL11.glPopMatrix();
+		renderer.bindTexture(previousTexture);
 
+		this.renderer = null;
+		previousTexture = null;
 		zIndex = 0;
 	}
 
@@ -191,118 +350,133 @@ public class EGOFont
 	}
 	//#end Prepare/Clean
 
-	private boolean isCharVisible(int x, int y, StringWalker walker, ClipArea area)
-	{
-		if (area == null || area.noClip())
-			return true;
-		if (area.fullClip())
-			return false;
-
-		return area.isInside(x, y) || area.isInside(x + (int) Math.ceil(walker.width()), y + (int) Math.ceil(walker.height()));
-	}
-
 	public void render(GuiRenderer renderer, GuiText text, int x, int y, int z, int alpha, FontOptions options, ClipArea clipArea)
 	{
 		if (text.length() <= 0)
 			return;
 
-		boolean isDrawing = renderer.isDrawing();
+		uploadPages();
+
+		GlyphRun run = text.glyphRun();
+		if (!run.isValid(this, options))
+			buildGlyphRun(run, text, options);
+
 		prepare(renderer, x, y, z, options);
+		run.render(renderer, x, y, z, alpha, clipArea);
+		clean(renderer);
+	}
+
+	/**
+	 * Builds the {@link GlyphRun} for the text, relative to its position.<br>
+	 * Only the lines following the first changed line are built again when possible.
+	 *
+	 * @param run the run
+	 * @param text the text
+	 * @param options the options
+	 */
+	protected void buildGlyphRun(GlyphRun run, GuiText text, FontOptions options)
+	{
+		int line = run.resumeLine(this, options);
+		FontOptions lineStyle = line > 0 ? text.lineStyle(line, options) : null;
+		if (lineStyle == null)
+			line = 0;
 
+		this.run = run;
+		run.start(this, options, line);
 		try
 		{
 			StringWalker walker = new StringWalker(text, options);
 			walker.applyStyles(true);
+			if (line > 0)
+				walker.startAtLine(line, lineStyle);
 
 			while (walker.walk())
 			{
-				if (isCharVisible((int) (x + walker.x()), (int) (y + walker.y()), walker, clipArea))
-				{
-					options = walker.currentStyle();
-					renderCharacter(walker.getChar(), walker.x(), walker.y(), options, alpha);
-				}
-				//rx += walker.width();
-
-				//if justified
-				//LineInfo info = text.lines().get(walker.lineIndex);
-				//rx += info.spaceWidth() / info.text().length();
-
-				//				if (walker.isEOL())
-				//				{
-				//					ry += walker.lineHeight();
-				//					rx = 0;
-				//				}
+				run.startLine(walker.lineIndex());
+				FontOptions style = walker.currentStyle();
+				renderCharacter(walker.getChar(), walker.x(), walker.y(), style.snapshot());
 			}
 		}
 		catch (Exception e)
 		{
 			e.printStackTrace();
 		}
+		run.end(text.lines()
+					.size());
+		this.run = null;
+	}
 
-		clean(renderer, isDrawing);
+	/**
+	 * Gets the {@link GuiTexture} holding the glyph for the {@link CharData}.
+	 *
+	 * @param cd the char data
+	 * @return the texture
+	 */
+	protected GuiTexture getTexture(CharData cd)
+	{
+		GuiTexture[] textures = glyphTextures[cd.getChar() >>> 8];
+		GuiTexture glyphTexture = textures != null ? textures[cd.getChar() & 0xFF] : null;
+		return glyphTexture != null ? glyphTexture : texture;
 	}
 
-	protected void renderCharacter(char c, float x, float y, FontOptions options, int alpha)
+	protected void renderCharacter(char c, float x, float y, FontOptions.Snapshot options)
 	{
 		CharData cd = getCharData(c);
 		if (options.isObfuscated())
+		{
 			cd = getRandomChar(cd, options.getObfuscatedCharList());
+			run.setVolatile();
+		}
 		float fs = options.getFontScale();
 
-		//draw shadow first
+		//shadow quads are drawn before all the other quads of the run
 		if (options.hasShadow())
 		{
-			drawChar(cd, x + fs, y + fs, options, options.getShadowColor(), alpha);
+			int shadowColor = options.getShadowColor();
+			run.setShadow(true);
+			drawChar(cd, x + fs, y + fs, options, shadowColor);
 			if (options.isBold())
-				drawChar(cd, x + 2 * fs, y + fs, options, options.getShadowColor(), alpha);
+				drawChar(cd, x + 2 * fs, y + fs, options, shadowColor);
 			if (options.isUnderline())
-				drawLine(cd, x + fs, y + 2 * fs, options, options.getShadowColor(), alpha);
+				drawLine(cd, x + fs, y + 2 * fs, options, shadowColor);
+			run.setShadow(false);
 		}
 
-		drawChar(cd, x, y, options, options.getColor(), alpha);
+		drawChar(cd, x, y, options, options.getColor());
 		if (options.isBold())
-			drawChar(cd, x + fs, y, options, options.getColor(), alpha);
+			drawChar(cd, x + fs, y, options, options.getColor());
 		if (options.isUnderline())
-			drawLine(cd, x, y + fs, options, options.getColor(), alpha);
+			drawLine(cd, x, y + fs, options, options.getColor());
 	}
 
-	protected void drawChar(CharData cd, float offsetX, float offsetY, FontOptions options, int color, int alpha)
+	protected void drawChar(CharData cd, float offsetX, float offsetY, FontOptions.Snapshot options, int color)
 	{
 		if (Character.isWhitespace(cd.getChar()))
 			return;
 
-		BufferBuilder buffer = Tessellator.getInstance()
-										  .getBuffer();
 		float factor = options.getFontScale() / fontGeneratorOptions.fontSize * 9;
 		float w = cd.getFullWidth(fontGeneratorOptions) * factor;
 		float h = cd.getFullHeight(fontGeneratorOptions) * factor;
 		float i = options.isItalic() ? options.getFontScale() : 0;
 
-		buffer.pos(offsetX + i, offsetY, zIndex);
-		buffer.tex(cd.u(), cd.v());
-		buffer.color((color >> 16) & 255, (color >> 8) & 255, color & 255, alpha);
-		buffer.endVertex();
-
-		buffer.pos(offsetX - i, offsetY + h, zIndex);
-		buffer.tex(cd.u(), cd.V());
-		buffer.color((color >> 16) & 255, (color >> 8) & 255, color & 255, alpha);
-		buffer.endVertex();
-
-		buffer.pos(offsetX + w - i, offsetY + h, zIndex);
-		buffer.tex(cd.U(), cd.V());
-		buffer.color((color >> 16) & 255, (color >> 8) & 255, color & 255, alpha);
-		buffer.endVertex();
-
-		buffer.pos(offsetX + w + i, offsetY, zIndex);
-		buffer.tex(cd.U(), cd.v());
-		buffer.color((color >> 16) & 255, (color >> 8) & 255, color & 255, alpha);
-		buffer.endVertex();
+		run.add(getTexture(cd),
+				color,
+				offsetX + i,
+				offsetY,
+				offsetX - i,
+				offsetY + h,
+				offsetX + w - i,
+				offsetY + h,
+				offsetX + w + i,
+				offsetY,
+				cd.u(),
+				cd.v(),
+				cd.U(),
+				cd.V());
 	}
 
-	protected void drawLine(CharData cd, float offsetX, float offsetY, FontOptions options, int color, int alpha)
+	protected void drawLine(CharData cd, float offsetX, float offsetY, FontOptions.Snapshot options, int color)
 	{
-		BufferBuilder buffer = Tessellator.getInstance()
-										  .getBuffer();
 		float factor = options.getFontScale() / fontGeneratorOptions.fontSize * 9;
 		float w = cd.getFullWidth(fontGeneratorOptions) * factor + options.getFontScale();
 		if (options.isBold())
@@ -311,26 +485,20 @@ public class EGOFont
 
 		//use underscore char data for UVs
 		cd = getCharData('_');
-
-		buffer.pos(offsetX, offsetY, zIndex);
-		buffer.tex(cd.u(), cd.v());
-		buffer.color((color >> 16) & 255, (color >> 8) & 255, color & 255, alpha);
-		buffer.endVertex();
-
-		buffer.pos(offsetX, offsetY + h, zIndex);
-		buffer.tex(cd.u(), cd.V());
-		buffer.color((color >> 16) & 255, (color >> 8) & 255, color & 255, alpha);
-		buffer.endVertex();
-
-		buffer.pos(offsetX + w, offsetY + h, zIndex);
-		buffer.tex(cd.U(), cd.V());
-		buffer.color((color >> 16) & 255, (color >> 8) & 255, color & 255, alpha);
-		buffer.endVertex();
-
-		buffer.pos(offsetX + w, offsetY, zIndex);
-		buffer.tex(cd.U(), cd.v());
-		buffer.color((color >> 16) & 255, (color >> 8) & 255, color & 255, alpha);
-		buffer.endVertex();
+		run.add(getTexture(cd),
+				color,
+				offsetX,
+				offsetY,
+				offsetX,
+				offsetY + h,
+				offsetX + w,
+				offsetY + h,
+				offsetX + w,
+				offsetY,
+				cd.u(),
+				cd.v(),
+				cd.U(),
+				cd.V());
 	}
 
 	public CharData getRandomChar(CharData cd, String charList)
@@ -459,14 +627,25 @@ public class EGOFont
 	 * @return the char width
 	 */
 	public float getCharWidth(char c, FontOptions options)
+	{
+		return getCharWidth(c, options != null ? options.getFontScale() : 1);
+	}
+
+	/**
+	 * Gets the rendering width of a character.
+	 *
+	 * @param c the c
+	 * @param scale the font scale
+	 * @return the char width
+	 */
+	public float getCharWidth(char c, float scale)
 	{
 		if (c == '\r' || c == '\n')
 			return 0;
 		if (c == '\t')
-			return getCharWidth(' ', options) * 4;
+			return getCharWidth(' ', scale) * 4;
 
-		return getCharData(c).getCharWidth() / fontGeneratorOptions.fontSize * (options != null ? options.getFontScale() : 1)
-				* MinecraftFont.FONT_SIZE;
+		return getCharData(c).getCharWidth() / fontGeneratorOptions.fontSize * scale * MinecraftFont.FONT_SIZE;
 	}
 
 	/**
@@ -478,8 +657,19 @@ public class EGOFont
 	 */
 	public float getCharHeight(char c, FontOptions options)
 	{
-		return getCharData(c).getCharHeight() / fontGeneratorOptions.fontSize * (options != null ? options.getFontScale() : 1)
-				* MinecraftFont.FONT_SIZE;
+		return getCharHeight(c, options != null ? options.getFontScale() : 1);
+	}
+
+	/**
+	 * Gets the rendering height of a character.
+	 *
+	 * @param c the c
+	 * @param scale the font scale
+	 * @return the char height
+	 */
+	public float getCharHeight(char c, float scale)
+	{
+		return getCharData(c).getCharHeight() / fontGeneratorOptions.fontSize * scale * MinecraftFont.FONT_SIZE;
 	}
 
 	/**
@@ -514,7 +704,7 @@ public class EGOFont
 			LineMetrics lm = font.getLineMetrics(s, frc);
 			Rectangle2D bounds = font.getStringBounds(s, frc);
 			CharData cd = new CharData(c, lm.getAscent(), (float) bounds.getWidth(), fontGeneratorOptions.fontSize);
-			charData[c] = cd;
+			charData.put(c, cd);
 			totalWidth += cd.getFullWidth(fontGeneratorOptions);
 			//System.out.println(cd.getChar() + " : " + cd.getCharWidth());
 		}
@@ -540,76 +730,53 @@ public class EGOFont
 		return r + 1;
 	}
 
+	/**
+	 * Loads the texture and the glyphs for the first page from the cache file, or generates them if the cache is missing or stale.
+	 *
+	 * @param forceGenerate whether to generate even if the cache is valid
+	 * @return true, if successful
+	 */
 	protected boolean loadTexture(boolean forceGenerate)
 	{
-		File textureFile = new File("fonts/" + font.getName() + ".png");
-		File uvFile = new File("fonts/" + font.getName() + ".bin");
-		BufferedImage img;
-		if (!textureFile.exists() || !uvFile.exists() || forceGenerate)
+		File cacheFile = new File("fonts/" + font.getName() + ".egofont");
+		long checksum = FontCache.checksum(font, fontGeneratorOptions);
+		FontCache cache = forceGenerate ? null : FontCache.read(cacheFile, checksum);
+		ByteBuffer texels;
+		if (cache != null)
 		{
-			EGO.log.info("Generating files for " + font.getName());
-			img = new FontGenerator(font, charData, fontGeneratorOptions).generate(size, textureFile, uvFile);
+			EGO.log.info("Loading texture and data for " + font.getName());
+			for (CharData cd : cache.glyphs())
+				charData.put(cd.getChar(), cd);
+			size = cache.size();
+			texels = cache.texels();
 		}
 		else
 		{
-			EGO.log.info("Loading texture and data for " + font.getName());
-			img = readTextureFile(textureFile);
-			readUVFile(uvFile);
+			EGO.log.info("Generating files for " + font.getName());
+			loadCharacterData();
+			FontGenerator generator = new FontGenerator(font, charData.page(0), fontGeneratorOptions);
+			BufferedImage img;
+			if (fontGeneratorOptions.debug)
+				img = generator.generate(size, new File("fonts/" + font.getName() + ".png"), new File("fonts/" + font.getName() + ".bin"));
+			else
+				img = generator.generate(size);
+			texels = FontCache.texels(img);
+			CharData[] glyphs = charData.page(0)
+										.clone();
+			int textureSize = size;
+			ByteBuffer data = texels;
+			FontGenerator.fileWriter.execute(() -> FontCache.write(cacheFile, checksum, glyphs, textureSize, data));
 		}
 
-		if (img == null)
-			return false;
-
+		TextureManager textureManager = Minecraft.getMinecraft()
+												 .getTextureManager();
 		if (textureRl != null)
-			Minecraft.getMinecraft()
-					 .getTextureManager()
-					 .deleteTexture(textureRl);
-
-		DynamicTexture dynTex = new DynamicTexture(img);
-		textureRl = Minecraft.getMinecraft()
-							 .getTextureManager()
-							 .getDynamicTextureLocation(font.getName(), dynTex);
-		return true;
-	}
-
-	protected BufferedImage readTextureFile(File textureFile)
-	{
-		try
-		{
-			BufferedImage img = ImageIO.read(textureFile);
-			if (img == null)
-			{
-				EGO.log.error("Failed to read font texture, no image could be read from the file.");
-				return null;
-			}
-			size = img.getWidth();
-			return img;
-		}
-		catch (IOException e)
-		{
-			EGO.log.error("Failed to read font texture.", e);
-		}
-
-		return null;
-	}
-
-	protected void readUVFile(File uvFile)
-	{
-		int i = 0;
-		try
-		{
-			for (String str : Files.readLines(uvFile, StandardCharsets.UTF_8))
-			{
-				String[] split = str.split(";");
-				CharData cd = charData[i++];
-				cd.setUVs(Float.parseFloat(split[1]), Float.parseFloat(split[2]), Float.parseFloat(split[3]), Float.parseFloat(split[4]));
-			}
-		}
-		catch (IOException | NumberFormatException e)
-		{
-			EGO.log.error("Failed to read font data. (Line " + i + " (" + (char) i + ")", e);
-		}
+			textureManager.deleteTexture(textureRl);
 
+		textureRl = new ResourceLocation(EGO.modid, "fonts/" + font.getName() + "_" + Long.toHexString(checksum));
+		textureManager.loadTexture(textureRl, new FontTexture(size, texels));
+		texture = new GuiTexture(textureRl, size, size);
+		return true;
 	}
 
 	//#end Load font
@@ -648,8 +815,11 @@ public class EGOFont
 	{
 		try
 		{
-			Font font = Font.createFont(options.fontType, is);
-			return font.deriveFont(options.fontSize);
+			byte[] data = IOUtils.toByteArray(is);
+			Font font = Font.createFont(options.fontType, new ByteArrayInputStream(data))
+							.deriveFont(options.fontSize);
+			FontCache.registerSource(font, data);
+			return font;
 		}
 		catch (IOException | FontFormatException e)
 		{
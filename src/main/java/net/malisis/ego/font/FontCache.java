@@ -0,0 +1,257 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.ego.font;
+
+import com.google.common.collect.MapMaker;
+import net.malisis.ego.EGO;
+
+import java.awt.Font;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary cache file holding the generated data of an {@link EGOFont}.<br>
+ * The file contains a header (magic, version, checksum, texture size, glyph count), the metrics and UVs of each glyph, and the raw RGBA
+ * texels of the texture. The file is memory-mapped when read, and the texels are uploaded directly from the mapped buffer.
+ *
+ * @author Ordinastie
+ */
+public class FontCache
+{
+	/** "EGOF" */
+	private static final int MAGIC = 0x45474F46;
+	/** Version of the format, to increment when the layout changes. */
+	private static final int VERSION = 1;
+	/** Magic, version, checksum, size, glyph count. */
+	private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4;
+	/** Char, ascent, width, height, u, v, U, V. */
+	private static final int GLYPH_SIZE = 2 + 7 * 4;
+
+	/** Checksums of the source data for the fonts loaded through {@link EGOFont#load(java.io.InputStream, FontGeneratorOptions)}. */
+	private static final Map<Font, Long> sourceChecksums = new MapMaker().weakKeys()
+																		  .makeMap();
+
+	private final int size;
+	private final CharData[] glyphs;
+	private final ByteBuffer texels;
+
+	private FontCache(int size, CharData[] glyphs, ByteBuffer texels)
+	{
+		this.size = size;
+		this.glyphs = glyphs;
+		this.texels = texels;
+	}
+
+	/**
+	 * Gets the size of the texture (width and height).
+	 *
+	 * @return the size
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Gets the glyphs, with their UVs set.
+	 *
+	 * @return the char data
+	 */
+	public CharData[] glyphs()
+	{
+		return glyphs;
+	}
+
+	/**
+	 * Gets the RGBA texels of the texture.
+	 *
+	 * @return the byte buffer
+	 */
+	public ByteBuffer texels()
+	{
+		return texels;
+	}
+
+	/**
+	 * Registers the checksum of the data a {@link Font} was created from.
+	 *
+	 * @param font the font
+	 * @param data the data
+	 */
+	static void registerSource(Font font, byte[] data)
+	{
+		CRC32 crc = new CRC32();
+		crc.update(data);
+		sourceChecksums.put(font, crc.getValue());
+	}
+
+	/**
+	 * Computes the checksum identifying the generated data for a {@link Font} and {@link FontGeneratorOptions}.<br>
+	 * Uses the checksum of the source file when known, otherwise the name and glyph count of the font.
+	 *
+	 * @param font the font
+	 * @param options the options
+	 * @return the checksum
+	 */
+	public static long checksum(Font font, FontGeneratorOptions options)
+	{
+		Long source = sourceChecksums.get(font);
+		String key = (source != null ? Long.toHexString(source) : font.getFontName() + ";" + font.getNumGlyphs()) + ";" + font.getStyle()
+				+ ";" + font.getSize2D() + ";" + options.fontType + ";" + options.fontSize + ";" + options.antialias + ";" + options.mx + ";"
+				+ options.px + ";" + options.my + ";" + options.py + ";" + options.debug;
+
+		CRC32 crc = new CRC32();
+		crc.update(key.getBytes(StandardCharsets.UTF_8));
+		return ((long) VERSION << 32) ^ crc.getValue();
+	}
+
+	/**
+	 * Reads the cache file.<br>
+	 * Returns null if the file does not exist, was generated for another checksum, or is corrupted.
+	 *
+	 * @param file the file
+	 * @param checksum the checksum
+	 * @return the font cache
+	 */
+	public static FontCache read(File file, long checksum)
+	{
+		if (!file.exists())
+			return null;
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			ByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != checksum)
+				return null;
+
+			int size = buffer.getInt();
+			int count = buffer.getInt();
+			if (size <= 0 || count < 0 || buffer.remaining() != (long) count * GLYPH_SIZE + (long) size * size * 4)
+				return null;
+
+			CharData[] glyphs = new CharData[count];
+			for (int i = 0; i < count; i++)
+			{
+				CharData cd = new CharData(buffer.getChar(), buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
+				cd.setUVs(buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
+				glyphs[i] = cd;
+			}
+
+			return new FontCache(size, glyphs, buffer.slice());
+		}
+		catch (IOException | BufferUnderflowException e)
+		{
+			EGO.log.warn("Failed to read font cache {}.", file.getName(), e);
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the cache file.
+	 *
+	 * @param file the file
+	 * @param checksum the checksum
+	 * @param glyphs the glyphs, null entries are skipped
+	 * @param size the size of the texture
+	 * @param texels the RGBA texels
+	 */
+	public static void write(File file, long checksum, CharData[] glyphs, int size, ByteBuffer texels)
+	{
+		int count = 0;
+		for (CharData cd : glyphs)
+			if (cd != null)
+				count++;
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + count * GLYPH_SIZE);
+		header.putInt(MAGIC)
+			  .putInt(VERSION)
+			  .putLong(checksum)
+			  .putInt(size)
+			  .putInt(count);
+		for (CharData cd : glyphs)
+		{
+			if (cd == null)
+				continue;
+			header.putChar(cd.getChar())
+				  .putFloat(cd.getAscent())
+				  .putFloat(cd.getCharWidth())
+				  .putFloat(cd.getCharHeight())
+				  .putFloat(cd.u())
+				  .putFloat(cd.v())
+				  .putFloat(cd.U())
+				  .putFloat(cd.V());
+		}
+		header.flip();
+
+		ByteBuffer data = texels.duplicate();
+		try (FileChannel channel = FileChannel.open(file.toPath(),
+													StandardOpenOption.CREATE,
+													StandardOpenOption.WRITE,
+													StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			while (header.hasRemaining())
+				channel.write(header);
+			while (data.hasRemaining())
+				channel.write(data);
+			EGO.log.info("{} ({}x{}) written.", file.getName(), size, size);
+		}
+		catch (IOException e)
+		{
+			EGO.log.error("Failed to write font cache {}.", file.getName(), e);
+		}
+	}
+
+	/**
+	 * Converts the image into RGBA texels.
+	 *
+	 * @param img the img
+	 * @return the byte buffer
+	 */
+	public static ByteBuffer texels(BufferedImage img)
+	{
+		int width = img.getWidth();
+		int height = img.getHeight();
+		int[] argb = img.getRGB(0, 0, width, height, null, 0, width);
+		ByteBuffer buffer = ByteBuffer.allocateDirect(width * height * 4);
+		for (int pixel : argb)
+		{
+			buffer.put((byte) (pixel >> 16))
+				  .put((byte) (pixel >> 8))
+				  .put((byte) pixel)
+				  .put((byte) (pixel >>> 24));
+		}
+		buffer.flip();
+		return buffer;
+	}
+}
@@ -24,6 +24,7 @@
 
 package net.malisis.ego.font;
 
+import com.google.common.collect.Lists;
 import net.malisis.ego.EGO;
 import org.apache.commons.io.FileUtils;
 
@@ -35,6 +36,10 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 import javax.imageio.ImageIO;
 
@@ -50,6 +55,15 @@ public class FontGenerator
 			f.mkdir();
 	}
 
+	/** Margin around each tile, for glyphs drawn slightly outside of their row. */
+	private static final int TILE_MARGIN = 15;
+	/** Executor writing the generated files in the background. */
+	static final ExecutorService fileWriter = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "EGO font writer");
+		thread.setDaemon(true);
+		return thread;
+	});
+
 	private final Font font;
 	private final CharData[] charData;
 	private final FontGeneratorOptions options;
@@ -61,6 +75,29 @@ public class FontGenerator
 		this.options = options;
 	}
 
+	/**
+	 * Generates the texture for the characters, without writing any file.
+	 *
+	 * @param size the size
+	 * @return the image
+	 */
+	public BufferedImage generate(int size)
+	{
+		return generate(size, true);
+	}
+
+	/**
+	 * Generates the texture for the characters, rasterizing the tiles in parallel or one after the other.
+	 *
+	 * @param size the size
+	 * @param parallel whether to rasterize the tiles in parallel
+	 * @return the image
+	 */
+	BufferedImage generate(int size, boolean parallel)
+	{
+		return drawGlyphs(size, 35, parallel);
+	}
+
 	public BufferedImage generate(int size, File textureFile, File uvFile)
 	{
 		BufferedImage img = generateTexture(size, textureFile);
@@ -68,81 +105,181 @@ public class FontGenerator
 		return img;
 	}
 
-	private BufferedImage generateTexture(int size, File textureFile)
+	/**
+	 * Generates the texture for a page of glyphs, without writing any file.<br>
+	 * Null entries in the char data are skipped, and the UVs of the others are set.
+	 *
+	 * @return the image
+	 */
+	public BufferedImage generatePage()
 	{
-		BufferedImage img = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
-		Graphics2D g = initGraphics(img);
+		return generatePage(true);
+	}
+
+	/**
+	 * Generates the texture for a page of glyphs, rasterizing the tiles in parallel or one after the other.
+	 *
+	 * @param parallel whether to rasterize the tiles in parallel
+	 * @return the image
+	 */
+	BufferedImage generatePage(boolean parallel)
+	{
+		return drawGlyphs(fitSize(0), 0, parallel);
+	}
+
+	/**
+	 * Gets the smallest power of two texture size that can hold the glyphs starting at <code>first</code>.
+	 *
+	 * @param first the first index to draw
+	 * @return the size
+	 */
+	public int fitSize(int first)
+	{
+		int size = 64;
+		while (size < 8192)
+		{
+			int x = 10;
+			int y = 10;
+			for (int i = first; i < charData.length; i++)
+			{
+				CharData cd = charData[i];
+				if (cd == null)
+					continue;
+				if (x + cd.getFullWidth(options) > size)
+				{
+					x = (int) options.mx;
+					y += options.fontSize + options.my + options.py + 15;
+				}
+				x += cd.getFullWidth(options) + 15;
+			}
+			if (y + options.fontSize + options.my + options.py <= size)
+				break;
+			size *= 2;
+		}
+		return size;
+	}
 
+	/**
+	 * Draws the glyphs starting at <code>first</code> and sets their UVs.<br>
+	 * The glyphs are laid out first, then the rows are split in tiles rasterized in parallel, each in its own image, and finally composited
+	 * into the texture.
+	 *
+	 * @param size the size
+	 * @param first the first index to draw
+	 * @param parallel whether to rasterize the tiles in parallel
+	 * @return the image
+	 */
+	private BufferedImage drawGlyphs(int size, int first, boolean parallel)
+	{
+		float rowHeight = options.fontSize + options.my + options.py + 15;
+
+		//layout
+		int[] xs = new int[charData.length];
+		int[] ys = new int[charData.length];
 		int x = 10;
 		int y = 10;
-		for (char c = 35; c < 256; c++)
+		for (int i = first; i < charData.length; i++)
 		{
-			CharData cd = charData[c];
+			CharData cd = charData[i];
+			if (cd == null)
+				continue;
 			if (x + cd.getFullWidth(options) > size)
 			{
 				x = (int) options.mx;
-				y += options.fontSize + options.my + options.py + 15;
+				y += rowHeight;
 			}
-			g.drawString("" + cd.getChar(), x, y + cd.getAscent());
-
+			xs[i] = x;
+			ys[i] = y;
 			cd.setUVs(x, y, size, options);
-
-			if (options.debug)
-			{
-				//baseLine
-				g.setColor(Color.RED);
-				g.drawLine(x, (int) (y + cd.getAscent()), (int) (x + cd.getFullWidth(options)), (int) (y + cd.getAscent()));
-
-				g.setColor(Color.MAGENTA);
-				g.drawRect(x, y, (int) (cd.getCharWidth()), (int) (cd.getCharHeight()));
-
-				g.setColor(Color.BLACK);
-			}
-
 			x += cd.getFullWidth(options) + 15;
 		}
 
-		try
+		//split the rows in tiles
+		int rows = (int) ((y - 10) / rowHeight) + 1;
+		int tileCount = Math.min(rows, ForkJoinPool.commonPool()
+												   .getParallelism() * 2);
+		int rowsPerTile = (rows + tileCount - 1) / tileCount;
+		List<Tile> tiles = Lists.newArrayList();
+		int start = first;
+		for (int t = 1; t <= tileCount && start < charData.length; t++)
 		{
-			ImageIO.write(img, "png", textureFile);
-			EGO.log.info(textureFile.getName() + " (" + size + "x" + size + ") written.");
-		}
-		catch (IOException e)
-		{
-			EGO.log.error("Failed to create font texture file for {}.", font.getName(), e);
+			int limit = 10 + (int) (t * rowsPerTile * rowHeight);
+			int end = start;
+			int top = -1;
+			int bottom = 0;
+			for (; end < charData.length && (charData[end] == null || ys[end] < limit); end++)
+			{
+				if (charData[end] == null)
+					continue;
+				if (top == -1)
+					top = ys[end];
+				bottom = ys[end] + (int) Math.ceil(rowHeight);
+			}
+			if (top != -1)
+				tiles.add(new Tile(start, end, top, bottom));
+			start = end;
 		}
 
+		(parallel ? tiles.parallelStream() : tiles.stream()).forEach(tile -> tile.draw(size, xs, ys));
+
+		//composite
+		BufferedImage img = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = initGraphics(img, true);
+		for (Tile tile : tiles)
+			g.drawImage(tile.image, 0, tile.top - TILE_MARGIN, null);
+		g.dispose();
 		return img;
 	}
 
-	private void generateUVs(int size, File uvFile)
+	private BufferedImage generateTexture(int size, File textureFile)
 	{
-		try
-		{
-			StringBuilder sb = new StringBuilder();
-			for (CharData cd : charData)
+		BufferedImage img = drawGlyphs(size, 35, true);
+
+		fileWriter.execute(() -> {
+			try
 			{
-				if (cd.getChar() < 35 || cd.getChar() == ';')
-					sb.append((int) cd.getChar());
-				else
-					sb.append(cd.getChar());
-				sb.append(";");
-				sb.append(cd.u());
-				sb.append(";");
-				sb.append(cd.v());
-				sb.append(";");
-				sb.append(cd.U());
-				sb.append(";");
-				sb.append(cd.V());
-				sb.append(";\n");
+				ImageIO.write(img, "png", textureFile);
+				EGO.log.info(textureFile.getName() + " (" + size + "x" + size + ") written.");
 			}
+			catch (IOException e)
+			{
+				EGO.log.error("Failed to create font texture file for {}.", font.getName(), e);
+			}
+		});
 
-			FileUtils.write(uvFile, sb, StandardCharsets.UTF_8);
-		}
-		catch (IOException e)
+		return img;
+	}
+
+	private void generateUVs(int size, File uvFile)
+	{
+		StringBuilder sb = new StringBuilder();
+		for (CharData cd : charData)
 		{
-			EGO.log.error("Failed to create UV file for {}.", font.getName(), e);
+			if (cd.getChar() < 35 || cd.getChar() == ';')
+				sb.append((int) cd.getChar());
+			else
+				sb.append(cd.getChar());
+			sb.append(";");
+			sb.append(cd.u());
+			sb.append(";");
+			sb.append(cd.v());
+			sb.append(";");
+			sb.append(cd.U());
+			sb.append(";");
+			sb.append(cd.V());
+			sb.append(";\n");
 		}
+
+		fileWriter.execute(() -> {
+			try
+			{
+				FileUtils.write(uvFile, sb, StandardCharsets.UTF_8);
+			}
+			catch (IOException e)
+			{
+				EGO.log.error("Failed to create UV file for {}.", font.getName(), e);
+			}
+		});
 	}
 
 	/**
@@ -150,9 +287,10 @@ public class FontGenerator
 	 * If debug mode, will also draw a grid on the image.
 	 *
 	 * @param img the img
+	 * @param grid whether to draw the debug grid
 	 * @return the graphics2 d
 	 */
-	private Graphics2D initGraphics(BufferedImage img)
+	private Graphics2D initGraphics(BufferedImage img, boolean grid)
 	{
 		Graphics2D g = img.createGraphics();
 		g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
@@ -162,7 +300,7 @@ public class FontGenerator
 
 		g.setFont(font);
 
-		if (options.debug)
+		if (options.debug && grid)
 		{
 			int color = 0x666666;
 			for (int i = 0; i < img.getWidth(); i += 25)
@@ -183,4 +321,53 @@ public class FontGenerator
 
 		return g;
 	}
+
+	/**
+	 * Rows of glyphs rasterized in their own image.
+	 */
+	private class Tile
+	{
+		private final int start;
+		private final int end;
+		private final int top;
+		private final int bottom;
+		private BufferedImage image;
+
+		private Tile(int start, int end, int top, int bottom)
+		{
+			this.start = start;
+			this.end = end;
+			this.top = top;
+			this.bottom = bottom;
+		}
+
+		private void draw(int size, int[] xs, int[] ys)
+		{
+			image = new BufferedImage(size, bottom - top + 2 * TILE_MARGIN, BufferedImage.TYPE_INT_ARGB);
+			Graphics2D g = initGraphics(image, false);
+			g.translate(0, TILE_MARGIN - top);
+			for (int i = start; i < end; i++)
+			{
+				CharData cd = charData[i];
+				if (cd == null)
+					continue;
+				int x = xs[i];
+				int y = ys[i];
+				g.drawString("" + cd.getChar(), x, y + cd.getAscent());
+
+				if (options.debug)
+				{
+					//baseLine
+					g.setColor(Color.RED);
+					g.drawLine(x, (int) (y + cd.getAscent()), (int) (x + cd.getFullWidth(options)), (int) (y + cd.getAscent()));
+
+					g.setColor(Color.MAGENTA);
+					g.drawRect(x, y, (int) (cd.getCharWidth()), (int) (cd.getCharHeight()));
+
+					g.setColor(Color.BLACK);
+				}
+			}
+			g.dispose();
+		}
+	}
 }
@@ -28,11 +28,13 @@ import static com.google.common.base.Preconditions.*;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import net.malisis.ego.gui.EGOGui;
 import net.minecraft.util.text.TextFormatting;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -115,6 +117,13 @@ public class FontOptions
 	protected Predicate<Object> predicate;
 	protected Object predicateParam;
 
+	/** Resolved values for the current predicates state. */
+	private Snapshot snapshot;
+	/** Frame counter of the last predicates evaluation. */
+	private int snapshotCounter = -1;
+	/** {@link Snapshot} of the {@link FontOptions} this one was derived from through {@link #withStyle(TextFormatting)}, if any. */
+	private Snapshot root;
+
 	protected FontOptions(FontOptionsBuilder builder)
 	{
 		font = builder.font;
@@ -166,10 +175,28 @@ public class FontOptions
 		return ObjectUtils.firstNonNull(predicateParam, base.predicateParam);
 	}
 
+	/**
+	 * Gets the resolved values of this {@link FontOptions}.<br>
+	 * Predicates are evaluated at most once per frame, and a new {@link Snapshot} is only created when the active predicate changes, so the
+	 * returned instance can be compared to detect changes.
+	 *
+	 * @return the snapshot
+	 */
+	public Snapshot snapshot()
+	{
+		if (snapshot != null && (predicates.isEmpty() || (EGOGui.current() != null && !EGOGui.needsUpdate(snapshotCounter))))
+			return snapshot;
+
+		snapshotCounter = EGOGui.counter;
+		FontOptions active = get();
+		if (snapshot == null || snapshot.source != active)
+			snapshot = new Snapshot(this, active);
+		return snapshot;
+	}
+
 	public EGOFont getFont()
 	{
-		EGOFont font = ObjectUtils.firstNonNull(get().font, this.font, MinecraftFont.INSTANCE);
-		return font != null && font.isLoaded() ? font : MinecraftFont.INSTANCE;
+		return snapshot().getFont();
 	}
 
 	/**
@@ -179,7 +206,7 @@ public class FontOptions
 	 */
 	public float getFontScale()
 	{
-		return ObjectUtils.firstNonNull(get().fontScale, fontScale, 1F);
+		return snapshot().getFontScale();
 	}
 
 	/**
@@ -189,7 +216,7 @@ public class FontOptions
 	 */
 	public boolean isBold()
 	{
-		return ObjectUtils.firstNonNull(get().bold, bold, false);
+		return snapshot().isBold();
 	}
 
 	/**
@@ -199,7 +226,7 @@ public class FontOptions
 	 */
 	public boolean isItalic()
 	{
-		return ObjectUtils.firstNonNull(get().italic, italic, false);
+		return snapshot().isItalic();
 	}
 
 	/**
@@ -209,7 +236,7 @@ public class FontOptions
 	 */
 	public boolean isUnderline()
 	{
-		return ObjectUtils.firstNonNull(get().underline, underline, false);
+		return snapshot().isUnderline();
 	}
 
 	/**
@@ -219,7 +246,7 @@ public class FontOptions
 	 */
 	public boolean isStrikethrough()
 	{
-		return ObjectUtils.firstNonNull(get().strikethrough, strikethrough, false);
+		return snapshot().isStrikethrough();
 	}
 
 	/**
@@ -229,12 +256,12 @@ public class FontOptions
 	 */
 	public boolean isObfuscated()
 	{
-		return ObjectUtils.firstNonNull(get().obfuscated, obfuscated, false);
+		return snapshot().isObfuscated();
 	}
 
 	public String getObfuscatedCharList()
 	{
-		return ObjectUtils.firstNonNull(get().obfuscatedCharList, obfuscatedCharList);
+		return snapshot().getObfuscatedCharList();
 	}
 
 	/**
@@ -244,7 +271,7 @@ public class FontOptions
 	 */
 	public boolean hasShadow()
 	{
-		return getShadow() != Shadow.NONE;
+		return snapshot().hasShadow();
 	}
 
 	/**
@@ -254,7 +281,7 @@ public class FontOptions
 	 */
 	public Shadow getShadow()
 	{
-		return ObjectUtils.firstNonNull(get().shadow, shadow, Shadow.NONE);
+		return snapshot().getShadow();
 	}
 
 	/**
@@ -264,7 +291,7 @@ public class FontOptions
 	 */
 	public int getColor()
 	{
-		return ObjectUtils.firstNonNull(get().color, color, 0);
+		return snapshot().getColor();
 	}
 
 	/**
@@ -274,7 +301,7 @@ public class FontOptions
 	 */
 	public int charSpacing()
 	{
-		return ObjectUtils.firstNonNull(get().charSpacing, charSpacing, 1);
+		return snapshot().charSpacing();
 	}
 
 	/**
@@ -284,7 +311,7 @@ public class FontOptions
 	 */
 	public int lineSpacing()
 	{
-		return ObjectUtils.firstNonNull(get().lineSpacing, lineSpacing, 1);
+		return snapshot().lineSpacing();
 	}
 
 	/**
@@ -294,7 +321,7 @@ public class FontOptions
 	 */
 	public boolean isRightAligned()
 	{
-		return ObjectUtils.firstNonNull(get().rightAligned, rightAligned, false);
+		return snapshot().isRightAligned();
 	}
 
 	/**
@@ -304,8 +331,24 @@ public class FontOptions
 	 */
 	public int getShadowColor()
 	{
-		int color = getColor(); //make sure we use the right color
+		return snapshot().getShadowColor();
+	}
+
+	/**
+	 * Gets the {@link FontOptions} resulting of the {@link TextFormatting} applied to this {@link FontOptions}.<br>
+	 * The result is interned by style for the current predicates state, so walking formatted text does not create new instances, and
+	 * chains of formats always lead to the same bounded set of instances.
+	 *
+	 * @param format the format
+	 * @return the font options
+	 */
+	public FontOptions withStyle(TextFormatting format)
+	{
+		return snapshot().transition(this, format);
+	}
 
+	private static int shadowColor(int color, Shadow shadow)
+	{
 		if (color == 0x990000)
 			return 0xBF9999;
 
@@ -318,10 +361,10 @@ public class FontOptions
 		int g = (color >> 8) & 255;
 		int b = color & 255;
 
-		return getShadow() == Shadow.LIGHT ? lightShadow(r, g, b) : darkShadow(r, g, b);
+		return shadow == Shadow.LIGHT ? lightShadow(r, g, b) : darkShadow(r, g, b);
 	}
 
-	private int darkShadow(int r, int g, int b)
+	private static int darkShadow(int r, int g, int b)
 	{
 		r /= 4;
 		g /= 4;
@@ -330,7 +373,7 @@ public class FontOptions
 		return (r & 255) << 16 | (g & 255) << 8 | b & 255;
 	}
 
-	private int lightShadow(int r, int g, int b)
+	private static int lightShadow(int r, int g, int b)
 	{
 		r = 255 - (255 - r) / 4;
 		g = 255 - (255 - g) / 4;
@@ -455,6 +498,189 @@ public class FontOptions
 		return new FontOptionsBuilder();
 	}
 
+	/**
+	 * Resolved values of a {@link FontOptions} for a given predicate state.<br>
+	 * Used by the text rendering hot paths to avoid evaluating the predicates and unboxing the values for each character.
+	 */
+	public static final class Snapshot
+	{
+		/** Predicate {@link FontOptions} this {@link Snapshot} was resolved from. */
+		private final FontOptions source;
+		private final EGOFont font;
+		private final float fontScale;
+		private final int color;
+		private final int shadowColor;
+		private final Shadow shadow;
+		private final boolean bold;
+		private final boolean italic;
+		private final boolean underline;
+		private final boolean strikethrough;
+		private final boolean obfuscated;
+		private final String obfuscatedCharList;
+		private final int charSpacing;
+		private final int lineSpacing;
+		private final boolean rightAligned;
+		/** {@link FontOptions} derived from this snapshot for each {@link TextFormatting}, created on demand. */
+		private EnumMap<TextFormatting, FontOptions> transitions;
+		/** {@link FontOptions} derived from this snapshot through any chain of formats, by {@link #styleKey(int, int)}. */
+		private Map<Long, FontOptions> derived;
+
+		private Snapshot(FontOptions options, FontOptions active)
+		{
+			source = active;
+			font = ObjectUtils.firstNonNull(active.font, options.font, MinecraftFont.INSTANCE);
+			fontScale = ObjectUtils.firstNonNull(active.fontScale, options.fontScale, 1F);
+			color = ObjectUtils.firstNonNull(active.color, options.color, 0);
+			shadow = ObjectUtils.firstNonNull(active.shadow, options.shadow, Shadow.NONE);
+			bold = ObjectUtils.firstNonNull(active.bold, options.bold, false);
+			italic = ObjectUtils.firstNonNull(active.italic, options.italic, false);
+			underline = ObjectUtils.firstNonNull(active.underline, options.underline, false);
+			strikethrough = ObjectUtils.firstNonNull(active.strikethrough, options.strikethrough, false);
+			obfuscated = ObjectUtils.firstNonNull(active.obfuscated, options.obfuscated, false);
+			obfuscatedCharList = ObjectUtils.firstNonNull(active.obfuscatedCharList, options.obfuscatedCharList);
+			charSpacing = ObjectUtils.firstNonNull(active.charSpacing, options.charSpacing, 1);
+			lineSpacing = ObjectUtils.firstNonNull(active.lineSpacing, options.lineSpacing, 1);
+			rightAligned = ObjectUtils.firstNonNull(active.rightAligned, options.rightAligned, false);
+			shadowColor = shadowColor(color, shadow);
+		}
+
+		public EGOFont getFont()
+		{
+			//font may not be loaded yet when the snapshot is created
+			return font.isLoaded() ? font : MinecraftFont.INSTANCE;
+		}
+
+		public float getFontScale()
+		{
+			return fontScale;
+		}
+
+		public int getColor()
+		{
+			return color;
+		}
+
+		public int getShadowColor()
+		{
+			return shadowColor;
+		}
+
+		public Shadow getShadow()
+		{
+			return shadow;
+		}
+
+		public boolean hasShadow()
+		{
+			return shadow != Shadow.NONE;
+		}
+
+		public boolean isBold()
+		{
+			return bold;
+		}
+
+		public boolean isItalic()
+		{
+			return italic;
+		}
+
+		public boolean isUnderline()
+		{
+			return underline;
+		}
+
+		public boolean isStrikethrough()
+		{
+			return strikethrough;
+		}
+
+		public boolean isObfuscated()
+		{
+			return obfuscated;
+		}
+
+		public String getObfuscatedCharList()
+		{
+			return obfuscatedCharList;
+		}
+
+		public int charSpacing()
+		{
+			return charSpacing;
+		}
+
+		public int lineSpacing()
+		{
+			return lineSpacing;
+		}
+
+		public boolean isRightAligned()
+		{
+			return rightAligned;
+		}
+
+		private FontOptions transition(FontOptions options, TextFormatting format)
+		{
+			if (transitions == null)
+				transitions = new EnumMap<>(TextFormatting.class);
+
+			FontOptions result = transitions.get(format);
+			if (result == null)
+			{
+				result = intern(options, format);
+				transitions.put(format, result);
+			}
+			return result;
+		}
+
+		/**
+		 * Gets the {@link FontOptions} with the format applied from the root snapshot of the options, creating it if needed.<br>
+		 * Formats only change the color and the style flags, so there are at most one instance per color and style combination.
+		 */
+		private FontOptions intern(FontOptions options, TextFormatting format)
+		{
+			int color = format.isColor() ? colors[format.ordinal()] : this.color;
+			int flags = (bold ? 1 : 0) | (italic ? 2 : 0) | (underline ? 4 : 0) | (strikethrough ? 8 : 0) | (obfuscated ? 16 : 0);
+			switch (format)
+			{
+				case BOLD:
+					flags |= 1;
+					break;
+				case ITALIC:
+					flags |= 2;
+					break;
+				case UNDERLINE:
+					flags |= 4;
+					break;
+				case STRIKETHROUGH:
+					flags |= 8;
+					break;
+				case OBFUSCATED:
+					flags |= 16;
+					break;
+				default:
+			}
+
+			Snapshot root = options.root != null ? options.root : this;
+			if (root.derived == null)
+				root.derived = Maps.newHashMap();
+
+			return root.derived.computeIfAbsent(styleKey(color, flags), k -> {
+				FontOptions result = options.toBuilder()
+											.styles(format)
+											.build();
+				result.root = root;
+				return result;
+			});
+		}
+
+		private static long styleKey(int color, int flags)
+		{
+			return (long) color << 5 | flags;
+		}
+	}
+
 	public static class FontOptionsBuilder
 	{
 		private final Map<Predicate<Object>, FontOptionsBuilder> predicates = Maps.newLinkedHashMap();
@@ -0,0 +1,156 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.ego.font;
+
+import net.minecraft.client.renderer.GlStateManager;
+import net.minecraft.client.renderer.texture.ITextureObject;
+import net.minecraft.client.renderer.texture.TextureUtil;
+import net.minecraft.client.resources.IResourceManager;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Texture of an {@link EGOFont}, uploaded from raw RGBA texels.<br>
+ * The texels are only kept until the first upload, the texture is left as is on resource reloads.<br>
+ * Textures created empty are filled with {@link #upload(int, int, int, int, ByteBuffer, int, int, int)} and can grow in height.
+ *
+ * @author Ordinastie
+ */
+public class FontTexture implements ITextureObject
+{
+	private final int width;
+	private int height;
+	private ByteBuffer texels;
+	private boolean allocated = false;
+	private int glTextureId = -1;
+
+	public FontTexture(int size, ByteBuffer texels)
+	{
+		this.width = size;
+		this.height = size;
+		this.texels = texels;
+	}
+
+	public FontTexture(int width, int height)
+	{
+		this.width = width;
+		this.height = height;
+	}
+
+	public int width()
+	{
+		return width;
+	}
+
+	public int height()
+	{
+		return height;
+	}
+
+	@Override
+	public void loadTexture(IResourceManager resourceManager)
+	{
+		if (allocated)
+			return;
+
+		allocate();
+		if (texels != null)
+			GL11.glTexSubImage2D(GL11.GL_TEXTURE_2D, 0, 0, 0, width, height, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, texels);
+		texels = null;
+	}
+
+	private void allocate()
+	{
+		TextureUtil.allocateTexture(getGlTextureId(), width, height);
+		GlStateManager.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_NEAREST);
+		GlStateManager.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_NEAREST);
+		allocated = true;
+	}
+
+	/**
+	 * Uploads an area of the texels into this {@link FontTexture}.<br>
+	 * The texture must be bound.
+	 *
+	 * @param x the x position in this texture
+	 * @param y the y position in this texture
+	 * @param width the width of the area
+	 * @param height the height of the area
+	 * @param texels the source texels
+	 * @param rowLength the width of the source
+	 * @param srcX the x position in the source
+	 * @param srcY the y position in the source
+	 */
+	public void upload(int x, int y, int width, int height, ByteBuffer texels, int rowLength, int srcX, int srcY)
+	{
+		GL11.glPixelStorei(GL11.GL_UNPACK_ROW_LENGTH, rowLength);
+		GL11.glPixelStorei(GL11.GL_UNPACK_SKIP_PIXELS, srcX);
+		GL11.glPixelStorei(GL11.GL_UNPACK_SKIP_ROWS, srcY);
+		GL11.glTexSubImage2D(GL11.GL_TEXTURE_2D, 0, x, y, width, height, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, texels);
+		GL11.glPixelStorei(GL11.GL_UNPACK_ROW_LENGTH, 0);
+		GL11.glPixelStorei(GL11.GL_UNPACK_SKIP_PIXELS, 0);
+		GL11.glPixelStorei(GL11.GL_UNPACK_SKIP_ROWS, 0);
+	}
+
+	/**
+	 * Grows this {@link FontTexture} to the new height, keeping its content.<br>
+	 * The content is read back in a temporary buffer, the texture must be bound.
+	 *
+	 * @param height the new height
+	 */
+	public void grow(int height)
+	{
+		if (height <= this.height)
+			return;
+
+		ByteBuffer content = BufferUtils.createByteBuffer(width * this.height * 4);
+		GL11.glGetTexImage(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, content);
+		int previous = this.height;
+		this.height = height;
+		allocate();
+		GL11.glTexSubImage2D(GL11.GL_TEXTURE_2D, 0, 0, 0, width, previous, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, content);
+	}
+
+	@Override
+	public void setBlurMipmap(boolean blurIn, boolean mipmapIn)
+	{
+
+	}
+
+	@Override
+	public void restoreLastBlurMipmap()
+	{
+
+	}
+
+	@Override
+	public int getGlTextureId()
+	{
+		if (glTextureId == -1)
+			glTextureId = TextureUtil.glGenTextures();
+		return glTextureId;
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.ego.font;
+
+import com.google.common.collect.Lists;
+import net.malisis.ego.EGO;
+import net.malisis.ego.atlas.MaxRectsPacker;
+import net.malisis.ego.gui.render.GuiTexture;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.GlStateManager;
+import net.minecraft.util.ResourceLocation;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Texture shared by the glyphs of an {@link EGOFont} generated on demand.<br>
+ * The glyphs are packed with a {@link MaxRectsPacker} and uploaded in place, the texels of their page being discarded afterwards. When
+ * full, the texture grows in height until the maximum texture size is reached.
+ *
+ * @author Ordinastie
+ */
+class GlyphAtlas
+{
+	/** Width of the atlas. */
+	private static final int WIDTH = 2048;
+	/** Height of the atlas when created. */
+	private static final int INITIAL_HEIGHT = 256;
+	/** Space left between the glyphs. */
+	private static final int SPACING = 1;
+
+	private final MaxRectsPacker packer = new MaxRectsPacker();
+	private final FontTexture fontTexture;
+	private final GuiTexture texture;
+	private final int maxHeight;
+	/** Glyphs uploaded in this atlas, their V coordinates are scaled when the atlas grows. */
+	private final List<CharData> glyphs = Lists.newArrayList();
+
+	GlyphAtlas(String name)
+	{
+		int maxSize = Minecraft.getGLMaximumTextureSize();
+		int width = Math.min(WIDTH, maxSize);
+		maxHeight = maxSize;
+		fontTexture = new FontTexture(width, INITIAL_HEIGHT);
+		packer.reset(width, INITIAL_HEIGHT);
+
+		ResourceLocation rl = new ResourceLocation(EGO.modid, "fonts/" + name);
+		Minecraft.getMinecraft()
+				 .getTextureManager()
+				 .loadTexture(rl, fontTexture);
+		texture = new GuiTexture(rl, width, INITIAL_HEIGHT);
+	}
+
+	/**
+	 * Gets the {@link GuiTexture} to bind to draw the glyphs of this {@link GlyphAtlas}.
+	 *
+	 * @return the texture
+	 */
+	GuiTexture texture()
+	{
+		return texture;
+	}
+
+	/**
+	 * Binds the texture of this {@link GlyphAtlas} to upload glyphs.
+	 */
+	void bind()
+	{
+		GlStateManager.bindTexture(fontTexture.getGlTextureId());
+	}
+
+	/**
+	 * Packs and uploads the glyph drawn in the texels of its page, and sets its UVs inside this {@link GlyphAtlas}.<br>
+	 * The atlas must be {@link #bind() bound}.
+	 *
+	 * @param cd the char data, with UVs inside its page
+	 * @param texels the texels of the page
+	 * @param pageSize the size of the page
+	 * @return false if there is no space left in this atlas
+	 */
+	boolean add(CharData cd, ByteBuffer texels, int pageSize)
+	{
+		int srcX = Math.max((int) Math.floor(cd.u() * pageSize), 0);
+		int srcY = Math.max((int) Math.floor(cd.v() * pageSize), 0);
+		int w = Math.min((int) Math.ceil(cd.U() * pageSize), pageSize) - srcX;
+		int h = Math.min((int) Math.ceil(cd.V() * pageSize), pageSize) - srcY;
+
+		int[] pos = packer.insert(w + SPACING, h + SPACING);
+		while (pos == null && fontTexture.height() < maxHeight)
+		{
+			grow(Math.min(fontTexture.height() * 2, maxHeight));
+			pos = packer.insert(w + SPACING, h + SPACING);
+		}
+		if (pos == null)
+			return false;
+
+		fontTexture.upload(pos[0], pos[1], w, h, texels, pageSize, srcX, srcY);
+
+		//keep the sub-pixel offsets of the glyph inside its area
+		float width = fontTexture.width();
+		float height = fontTexture.height();
+		cd.setUVs((pos[0] - srcX + cd.u() * pageSize) / width,
+				  (pos[1] - srcY + cd.v() * pageSize) / height,
+				  (pos[0] - srcX + cd.U() * pageSize) / width,
+				  (pos[1] - srcY + cd.V() * pageSize) / height);
+		glyphs.add(cd);
+		return true;
+	}
+
+	private void grow(int height)
+	{
+		float factor = (float) fontTexture.height() / height;
+		fontTexture.grow(height);
+		packer.grow(height);
+		texture.setSize(fontTexture.width(), height);
+		for (CharData cd : glyphs)
+			cd.setUVs(cd.u(), cd.v() * factor, cd.U(), cd.V() * factor);
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.ego.font;
+
+import net.malisis.ego.EGO;
+import net.malisis.ego.gui.render.GuiRenderer;
+import net.malisis.ego.gui.text.GuiText;
+
+import java.awt.Font;
+
+/**
+ * Measures the {@link GlyphRun} of a text mixing ASCII and CJK characters, with and without shadow.<br>
+ * The CJK glyphs are generated on demand in the glyph atlas, so the run uses two textures. Reports the time to build and render the run,
+ * the time to render it once built, and the number of draws per render. Run with <code>/ego benchmark glyphs</code>.
+ *
+ * @author Ordinastie
+ */
+public class GlyphBenchmark
+{
+	/** Line repeated in the text. */
+	private static final String LINE = "Quest log 日本語のテキスト mixed with ASCII 中文字符 #";
+	/** Number of lines of the text. */
+	private static final int LINES = 200;
+	/** Number of times the run is built. */
+	private static final int BUILDS = 100;
+	/** Number of times the built run is rendered. */
+	private static final int RENDERS = 1000;
+	/** Maximum time to wait for the CJK pages to be generated, in milliseconds. */
+	private static final long TIMEOUT = 10000;
+
+	private GlyphBenchmark()
+	{
+	}
+
+	/**
+	 * Runs the benchmark and reports the results in the log and the chat.
+	 */
+	public static void run()
+	{
+		Font awtFont = new Font(Font.DIALOG, Font.PLAIN, 1).deriveFont(FontGeneratorOptions.DEFAULT.fontSize);
+		if (awtFont.canDisplayUpTo(LINE) != -1)
+		{
+			report("No font can display the CJK characters of the benchmark.");
+			return;
+		}
+
+		EGOFont font = new EGOFont(awtFont);
+		if (!waitForGlyphs(font))
+		{
+			report("The CJK glyphs were not generated in time.");
+			return;
+		}
+
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < LINES; i++)
+			sb.append(LINE)
+			  .append(i)
+			  .append('\n');
+		String str = sb.toString();
+
+		GuiRenderer renderer = new GuiRenderer();
+		measure(renderer, "shadow", text(str, font, true));
+		measure(renderer, "no shadow", text(str, font, false));
+	}
+
+	/**
+	 * Requests the pages of the CJK characters and waits until they are uploaded.
+	 *
+	 * @param font the font
+	 * @return true, if the glyphs are available
+	 */
+	private static boolean waitForGlyphs(EGOFont font)
+	{
+		long end = System.currentTimeMillis() + TIMEOUT;
+		while (System.currentTimeMillis() < end)
+		{
+			boolean ready = true;
+			font.glyphsVersion(); //uploads the generated pages
+			for (char c : LINE.toCharArray())
+			{
+				if (font.charData.get(c) == null)
+				{
+					font.getCharData(c); //requests the page
+					ready = false;
+				}
+			}
+			if (ready)
+				return true;
+
+			try
+			{
+				Thread.sleep(10);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread()
+					  .interrupt();
+				return false;
+			}
+		}
+		return false;
+	}
+
+	private static GuiText text(String str, EGOFont font, boolean shadow)
+	{
+		FontOptions.FontOptionsBuilder builder = FontOptions.builder()
+															.font(font);
+		if (shadow)
+			builder.shadow();
+		return GuiText.builder()
+					  .text(str)
+					  .fontOptions(builder.build())
+					  .build();
+	}
+
+	private static void measure(GuiRenderer renderer, String name, GuiText text)
+	{
+		text.update();
+
+		long start = System.nanoTime();
+		for (int i = 0; i < BUILDS; i++)
+		{
+			text.glyphRun()
+				.invalidate();
+			render(renderer, text);
+		}
+		long build = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int i = 0; i < RENDERS; i++)
+			render(renderer, text);
+		long render = System.nanoTime() - start;
+
+		report(String.format("%s : %d chars, build and render %.1fus, render %.1fus, %d draws per render",
+							 name,
+							 text.length(),
+							 build / 1e3 / BUILDS,
+							 render / 1e3 / RENDERS,
+							 renderer.lastDrawCount));
+	}
+
+	private static void render(GuiRenderer renderer, GuiText text)
+	{
+		renderer.setup(0);
+		text.render(renderer, 0, 0, 0, 255, null);
+		renderer.clean();
+	}
+
+	private static void report(String msg)
+	{
+		EGO.log.info(msg);
+		EGO.message(msg);
+	}
+}
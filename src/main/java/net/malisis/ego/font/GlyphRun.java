@@ -0,0 +1,269 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.ego.font;
+
+import com.google.common.collect.Lists;
+import net.malisis.ego.gui.element.IClipable.ClipArea;
+import net.malisis.ego.gui.render.GuiRenderer;
+import net.malisis.ego.gui.render.GuiTexture;
+import net.minecraft.client.renderer.BufferBuilder;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Glyph quads of a text, relative to its position, built once by the {@link EGOFont} when the lines of the text change.<br>
+ * Rendering only copies the vertices to the buffer with the current position, zIndex and alpha, one texture at a time. The shadow quads
+ * of all the textures are drawn before the other quads, so that a shadow never covers a glyph.<br>
+ * The first quad of each line is recorded so that only the lines following a change need to be built again.
+ *
+ * @author Ordinastie
+ */
+public class GlyphRun
+{
+	/** Number of floats per quad: 4 vertices of x, y, u, v. */
+	private static final int QUAD_SIZE = 16;
+
+	/** Font that built this {@link GlyphRun}. */
+	private EGOFont font;
+	/** Resolved options this {@link GlyphRun} was built with. */
+	private FontOptions.Snapshot options;
+	private boolean valid = false;
+	/** Number of lines at the start of the text whose quads are still valid. */
+	private int validLines = 0;
+	/** Whether the glyphs change every frame (obfuscated text). */
+	private boolean volatileGlyphs = false;
+
+	private int count = 0;
+	private float[] vertices = new float[QUAD_SIZE * 16];
+	private int[] colors = new int[16];
+	private GuiTexture[] quadTextures = new GuiTexture[16];
+	private boolean[] shadowQuads = new boolean[16];
+	/** Whether the quads added are part of the shadow. */
+	private boolean shadow = false;
+	/** Whether any quad is part of the shadow. */
+	private boolean hasShadows = false;
+	/** Distinct textures used, in order of appearance. */
+	private final List<GuiTexture> textures = Lists.newArrayList();
+	/** Index of the first quad of each line. */
+	private int[] lineStarts = new int[16];
+	/** Number of lines recorded in {@link #lineStarts}. */
+	private int lineCount = 0;
+
+	/**
+	 * Marks this {@link GlyphRun} to be built again on next render.
+	 */
+	public void invalidate()
+	{
+		invalidate(0);
+	}
+
+	/**
+	 * Marks this {@link GlyphRun} to be built again on next render, from the specified line.<br>
+	 * The quads of the lines before are kept.
+	 *
+	 * @param line the first line that changed
+	 */
+	public void invalidate(int line)
+	{
+		valid = false;
+		validLines = Math.min(validLines, line);
+	}
+
+	/**
+	 * Checks whether this {@link GlyphRun} can be rendered as is for the {@link EGOFont} and {@link FontOptions}.<br>
+	 * The run is no longer valid when a predicate of the options changes their resolved values.
+	 *
+	 * @param font the font
+	 * @param options the options
+	 * @return true if valid
+	 */
+	public boolean isValid(EGOFont font, FontOptions options)
+	{
+		return valid && !volatileGlyphs && this.font == font && this.options == options.snapshot();
+	}
+
+	/**
+	 * Gets the line from which this {@link GlyphRun} can be built again for the {@link EGOFont} and {@link FontOptions}.
+	 *
+	 * @param font the font
+	 * @param options the options
+	 * @return the first line to build, 0 if the whole run needs to be built
+	 */
+	int resumeLine(EGOFont font, FontOptions options)
+	{
+		if (volatileGlyphs || this.font != font || this.options != options.snapshot())
+			return 0;
+		return Math.max(0, Math.min(validLines, lineCount - 1));
+	}
+
+	void start(EGOFont font, FontOptions options, int line)
+	{
+		this.font = font;
+		this.options = options.snapshot();
+		shadow = false;
+		if (line > 0)
+		{
+			//textures of the removed quads are kept, they are only bound for nothing
+			count = lineStarts[line];
+			lineCount = line;
+			return;
+		}
+
+		count = 0;
+		lineCount = 0;
+		textures.clear();
+		volatileGlyphs = false;
+		hasShadows = false;
+	}
+
+	/**
+	 * Records the start of the lines up to the specified one at the current quad.
+	 *
+	 * @param line the line
+	 */
+	void startLine(int line)
+	{
+		if (line >= lineStarts.length)
+			lineStarts = Arrays.copyOf(lineStarts, Math.max(line + 1, lineStarts.length * 2));
+		while (lineCount <= line)
+			lineStarts[lineCount++] = count;
+	}
+
+	void end(int lines)
+	{
+		startLine(lines - 1);
+		validLines = lines;
+		valid = true;
+	}
+
+	void setVolatile()
+	{
+		volatileGlyphs = true;
+	}
+
+	/**
+	 * Sets whether the next quads added are part of the shadow.
+	 *
+	 * @param shadow whether the quads are part of the shadow
+	 */
+	void setShadow(boolean shadow)
+	{
+		this.shadow = shadow;
+	}
+
+	/**
+	 * Adds a glyph quad to this {@link GlyphRun}. Vertices are top left, bottom left, bottom right, top right.
+	 */
+	void add(GuiTexture texture, int color, float x1, float y1, float x2, float y2, float x3, float y3, float x4, float y4, float u,
+			float v, float U, float V)
+	{
+		if (count == colors.length)
+		{
+			vertices = Arrays.copyOf(vertices, vertices.length * 2);
+			colors = Arrays.copyOf(colors, colors.length * 2);
+			quadTextures = Arrays.copyOf(quadTextures, quadTextures.length * 2);
+			shadowQuads = Arrays.copyOf(shadowQuads, shadowQuads.length * 2);
+		}
+
+		int i = count * QUAD_SIZE;
+		vertices[i] = x1;
+		vertices[i + 1] = y1;
+		vertices[i + 2] = u;
+		vertices[i + 3] = v;
+		vertices[i + 4] = x2;
+		vertices[i + 5] = y2;
+		vertices[i + 6] = u;
+		vertices[i + 7] = V;
+		vertices[i + 8] = x3;
+		vertices[i + 9] = y3;
+		vertices[i + 10] = U;
+		vertices[i + 11] = V;
+		vertices[i + 12] = x4;
+		vertices[i + 13] = y4;
+		vertices[i + 14] = U;
+		vertices[i + 15] = v;
+		colors[count] = color;
+		quadTextures[count] = texture;
+		shadowQuads[count] = shadow;
+		hasShadows |= shadow;
+		if (!textures.contains(texture))
+			textures.add(texture);
+		count++;
+	}
+
+	/**
+	 * Renders this {@link GlyphRun} at the specified position.<br>
+	 * Glyphs outside the {@link ClipArea} are skipped.
+	 *
+	 * @param renderer the renderer
+	 * @param x the x
+	 * @param y the y
+	 * @param z the z
+	 * @param alpha the alpha
+	 * @param area the area
+	 */
+	public void render(GuiRenderer renderer, float x, float y, float z, int alpha, ClipArea area)
+	{
+		if (area != null && area.fullClip())
+			return;
+
+		if (hasShadows)
+			render(renderer, x, y, z, alpha, area, true);
+		render(renderer, x, y, z, alpha, area, false);
+	}
+
+	private void render(GuiRenderer renderer, float x, float y, float z, int alpha, ClipArea area, boolean shadow)
+	{
+		boolean clip = area != null && !area.noClip();
+		for (GuiTexture texture : textures)
+		{
+			renderer.bindTexture(texture);
+			BufferBuilder buffer = renderer.getBuffer();
+			for (int q = 0; q < count; q++)
+			{
+				if (quadTextures[q] != texture || shadowQuads[q] != shadow)
+					continue;
+
+				int i = q * QUAD_SIZE;
+				if (clip && !area.isInside((int) (x + vertices[i]), (int) (y + vertices[i + 1])) && !area.isInside(
+						(int) Math.ceil(x + vertices[i + 8]), (int) Math.ceil(y + vertices[i + 9])))
+					continue;
+
+				int color = colors[q];
+				int r = (color >> 16) & 255;
+				int g = (color >> 8) & 255;
+				int b = color & 255;
+				for (int j = i; j < i + QUAD_SIZE; j += 4)
+				{
+					buffer.pos(x + vertices[j], y + vertices[j + 1], z)
+						  .tex(vertices[j + 2], vertices[j + 3])
+						  .color(r, g, b, alpha)
+						  .endVertex();
+				}
+			}
+		}
+	}
+}
@@ -24,9 +24,8 @@
 
 package net.malisis.ego.font;
 
-import com.google.common.collect.Maps;
 import net.malisis.ego.EGO;
-import net.malisis.ego.gui.render.GuiRenderer;
+import net.malisis.ego.gui.render.GuiTexture;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.FontRenderer;
 import net.minecraft.util.ResourceLocation;
@@ -35,7 +34,6 @@ import net.minecraftforge.fml.client.FMLClientHandler;
 import java.awt.Font;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
-import java.util.Map;
 
 /**
  * @author Ordinastie
@@ -49,13 +47,12 @@ public class MinecraftFont extends EGOFont
 	//private float[] optifineCharWidth;
 	private byte[] glyphWidth;
 	private ResourceLocation[] unicodePages;
-	private ResourceLocation lastFontTexture;
+	private GuiTexture[] unicodeTextures = new GuiTexture[256];
 	private final FontRenderer fontRenderer;
 	/** CharData for Unicode characters */
-	protected Map<Character, CharData> unicodeCharData = Maps.newHashMap();
+	protected final CharTable unicodeCharData = new CharTable();
 	/** Whether the character should drawn with unicode font even if unicode is disabled in MC options. */
 	protected boolean forceUnicode = false;
-	private GuiRenderer renderer;
 
 	public MinecraftFont()
 	{
@@ -65,6 +62,7 @@ public class MinecraftFont extends EGOFont
 		fontGeneratorOptions.fontSize = FONT_SIZE;
 		textureRl = new ResourceLocation("textures/font/ascii.png");
 		size = 256;
+		texture = new GuiTexture(textureRl, 128, 128);
 
 		fontRenderer = Minecraft.getMinecraft().fontRenderer;
 		setFields();
@@ -141,70 +139,55 @@ public class MinecraftFont extends EGOFont
 	{
 		for (char c = 0; c < 256; c++)
 		{
-			charData[c] = new MCCharData(c);
+			charData.put(c, new MCCharData(c));
 			unicodeCharData.put(c, new UnicodeCharData(c));
 		}
 
 	}
 
-	private void bindFontTexture(CharData data)
+	@Override
+	protected GuiTexture getTexture(CharData data)
 	{
-		ResourceLocation rl = textureRl;
-		if (data instanceof UnicodeCharData)
+		if (!(data instanceof UnicodeCharData))
+			return texture;
+
+		int i = data.c / 256;
+		if (unicodeTextures[i] == null)
 		{
-			int i = data.c / 256;
 			if (unicodePages[i] == null)
 				unicodePages[i] = new ResourceLocation(String.format("textures/font/unicode_page_%02x.png", i));
-			rl = unicodePages[i];
-		}
-		if (rl != lastFontTexture)
-		{
-			renderer.next();
-			Minecraft.getMinecraft()
-					 .getTextureManager()
-					 .bindTexture(rl);
-			lastFontTexture = rl;
+			unicodeTextures[i] = new GuiTexture(unicodePages[i], 256, 256);
 		}
-	}
-
-	@Override
-	protected void prepare(GuiRenderer renderer, float x, float y, float z, FontOptions options)
-	{
-		super.prepare(renderer, x, y, z, options);
-		this.renderer = renderer;
-	}
-
-	@Override
-	protected void clean(GuiRenderer renderer, boolean isDrawing)
-	{
-		super.clean(renderer, isDrawing);
-		lastFontTexture = null;
+		return unicodeTextures[i];
 	}
 
 	@Override
 	public CharData getCharData(char c)
 	{
-		if (c < 0 || c >= 256 || fontRenderer.getUnicodeFlag() || forceUnicode)
+		if (c >= 256 || fontRenderer.getUnicodeFlag() || forceUnicode)
 		{
-			if (!unicodeCharData.containsKey(c))
-				unicodeCharData.put(c, new UnicodeCharData(c));
-			return unicodeCharData.get(c);
+			CharData cd = unicodeCharData.get(c);
+			if (cd == null)
+			{
+				cd = new UnicodeCharData(c);
+				unicodeCharData.put(c, cd);
+			}
+			return cd;
 		}
 
 		return super.getCharData(c);
 	}
 
 	@Override
-	protected void drawChar(CharData cd, float offsetX, float offsetY, FontOptions options, int color, int alpha)
+	protected void drawChar(CharData cd, float offsetX, float offsetY, FontOptions.Snapshot options, int color)
 	{
-		bindFontTexture(cd);
 		if (drawingShadow && cd instanceof UnicodeCharData)
 		{
 			offsetX -= options.getFontScale() / 2;
 			offsetY -= options.getFontScale() / 2;
 		}
 
-		super.drawChar(cd, offsetX, offsetY + 1, options, color, alpha);
+		super.drawChar(cd, offsetX, offsetY + 1, options, color);
 	}
 
 	@Override
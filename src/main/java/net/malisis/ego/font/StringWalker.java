@@ -25,14 +25,13 @@
 package net.malisis.ego.font;
 
 import com.google.common.collect.Lists;
-import net.malisis.ego.font.FontOptions.FontOptionsBuilder;
 import net.malisis.ego.gui.element.position.Position.IPosition;
 import net.malisis.ego.gui.text.GuiText;
 import net.malisis.ego.gui.text.GuiText.LineInfo;
 import net.minecraft.util.text.TextFormatting;
 import org.apache.commons.lang3.tuple.Pair;
 
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.Predicate;
 
@@ -83,19 +82,22 @@ public class StringWalker
 	protected float lineWidth;
 	protected float lineHeight;
 
-	protected LinkedList<FontOptions> styles = Lists.newLinkedList();
+	/** Stack of styles applied, the first one being the base style. */
+	protected FontOptions[] styles = new FontOptions[4];
+	/** Number of styles in the stack. */
+	protected int styleCount = 0;
 
 	public StringWalker(String text, FontOptions options)
 	{
 		initLine(text);
-		styles.add(options != null ? options : FontOptions.EMPTY);
+		pushStyle(options != null ? options : FontOptions.EMPTY);
 	}
 
 	public StringWalker(GuiText text, FontOptions options)
 	{
 		this.lines = text.lines();
 		this.litteral = text.isLiteral();
-		styles.add(options != null ? options : FontOptions.EMPTY);
+		pushStyle(options != null ? options : FontOptions.EMPTY);
 		this.rightAligned = options != null && options.isRightAligned();
 
 		if (lines.size() > 0)
@@ -201,7 +203,7 @@ public class StringWalker
 
 	public FontOptions currentStyle()
 	{
-		return styles.getLast();
+		return styles[styleCount - 1];
 	}
 
 	public boolean isEOL()
@@ -249,15 +251,18 @@ public class StringWalker
 	{
 		if (format == TextFormatting.RESET)
 		{
-			FontOptions fontOptions = styles.getFirst();
-			styles.clear();
-			styles.add(fontOptions);
+			styleCount = 1;
 			return;
 		}
 
-		FontOptionsBuilder builder = currentStyle().toBuilder();
-		builder.styles(format);
-		styles.add(builder.build());
+		pushStyle(currentStyle().withStyle(format));
+	}
+
+	private void pushStyle(FontOptions style)
+	{
+		if (styleCount == styles.length)
+			styles = Arrays.copyOf(styles, styles.length * 2);
+		styles[styleCount++] = style;
 	}
 
 	private void initLine(String text)
@@ -307,18 +312,18 @@ public class StringWalker
 		charIndex++;
 
 		checkFormatting();
-		FontOptions options = currentStyle();
+		FontOptions.Snapshot options = currentStyle().snapshot();
+		EGOFont font = options.getFont();
+		float scale = options.getFontScale();
 
 		c = currentText.charAt(charIndex);
 		x += width;//+ charSpacing(); // add last width
-		width = options.getFont()
-					   .getCharWidth(c, options);
+		width = font.getCharWidth(c, scale);
 		//		if (lines.size() > 0 && c == ' '/*options.isJustified()*/)
 		//			width += lines.get(lineIndex).spaceWidth();
-		height = options.getFont()
-						.getCharHeight(c, options);
+		height = font.getCharHeight(c, scale);
 		if (options.isBold())
-			width += options.getFontScale();
+			width += scale;
 
 		lineWidth += width;
 
@@ -427,6 +432,41 @@ public class StringWalker
 		return Pair.of(lineIndex, globalIndex);
 	}
 
+	/**
+	 * Resumes walking from the specified index, as if the text had been walked until there.<br>
+	 * Only valid for a {@link StringWalker} created with a single text, before the first call to {@link #walk()}.
+	 *
+	 * @param index the index of the next character to walk
+	 * @param style the style active at that index
+	 */
+	public void startAt(int index, FontOptions style)
+	{
+		globalIndex = index - 1;
+		charIndex = index - 1;
+		format = FontOptions.getFormatting(currentText, index - 1);
+		if (style != currentStyle())
+			pushStyle(style);
+	}
+
+	/**
+	 * Resumes walking from the start of the specified line, as if the previous lines had been walked.<br>
+	 * Only valid for a {@link StringWalker} created for a {@link GuiText}, before the first call to {@link #walk()}. The global index is
+	 * not restored.
+	 *
+	 * @param line the line
+	 * @param style the style active at the start of the line
+	 */
+	public void startAtLine(int line, FontOptions style)
+	{
+		lineIndex = line;
+		LineInfo lineInfo = lines.get(lineIndex);
+		y = lineInfo.y();
+		lineHeight = lineInfo.height();
+		initLine(lineInfo.text());
+		if (style != currentStyle())
+			pushStyle(style);
+	}
+
 	public boolean walk()
 	{
 		return nextCharacter();
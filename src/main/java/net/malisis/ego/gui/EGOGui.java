@@ -34,6 +34,7 @@ import net.malisis.ego.gui.component.MouseButton;
 import net.malisis.ego.gui.component.UIComponent;
 import net.malisis.ego.gui.component.container.UIContainer;
 import net.malisis.ego.gui.element.IKeyListener;
+import net.malisis.ego.gui.element.LayoutNode;
 import net.malisis.ego.gui.element.Margin;
 import net.malisis.ego.gui.element.size.Size;
 import net.malisis.ego.gui.element.size.Size.ISize;
@@ -87,6 +88,8 @@ public abstract class EGOGui extends GuiScreen implements ISize
 	public static final MousePosition MOUSE_POSITION = new MousePosition();
 
 	private static EGOGui current;
+	/** Layout node tracking the size of this {@link EGOGui}. */
+	private final LayoutNode sizeState = new LayoutNode();
 	public static IGuiRenderer GRADIENT_BG = GuiShape.builder()
 													 .width(() -> current().width())
 													 .height(() -> current().height())
@@ -121,6 +124,8 @@ public abstract class EGOGui extends GuiScreen implements ISize
 	//	protected MalisisInventoryContainer inventoryContainer;
 	/** Whether this GUI is considered as an overlay **/
 	protected boolean isOverlay = false;
+	/** Whether the components are polled for changes every frame so that the screen is only redrawn when something changed. */
+	protected boolean damageTracking = false;
 
 	protected Margin defaultMargin = Margin.NO_MARGIN;
 	/** Currently hovered child component. */
@@ -248,12 +253,14 @@ public abstract class EGOGui extends GuiScreen implements ISize
 	@Override
 	public int width()
 	{
+		sizeState.track();
 		return width;
 	}
 
 	@Override
 	public int height()
 	{
+		sizeState.track();
 		return height;
 	}
 
@@ -324,6 +331,7 @@ public abstract class EGOGui extends GuiScreen implements ISize
 
 		width = renderer.isIgnoreScale() ? displayWidth : resolution.getScaledWidth();
 		height = renderer.isIgnoreScale() ? displayHeight : resolution.getScaledHeight();
+		sizeState.invalidate();
 
 		screen.setSize(Size.of(width, height));
 	}
@@ -350,6 +358,30 @@ public abstract class EGOGui extends GuiScreen implements ISize
 		return isOverlay;
 	}
 
+	/**
+	 * Sets whether this {@link EGOGui} should track the changes of its components.<br>
+	 * When enabled, the content of the screen is cached offscreen and the components are polled every frame for changes. Only frames
+	 * where something changed are redrawn, others simply draw back the cached content. Mostly useful for overlays that rarely change.
+	 * Components with animated rendering (like enchanted items) should call {@link UIComponent#invalidateRender()} themselves.
+	 *
+	 * @param damageTracking whether to track changes
+	 */
+	public void setDamageTracking(boolean damageTracking)
+	{
+		this.damageTracking = damageTracking;
+		screen.setCacheContent(damageTracking);
+	}
+
+	/**
+	 * Checks whether this {@link EGOGui} tracks the changes of its components.
+	 *
+	 * @return true, if damage tracking is enabled
+	 */
+	public boolean isDamageTracking()
+	{
+		return damageTracking;
+	}
+
 	/**
 	 * Adds the {@link UIComponent}s to the screen.
 	 *
@@ -649,6 +681,9 @@ public abstract class EGOGui extends GuiScreen implements ISize
 
 		try
 		{
+			LayoutNode.poll();
+			if (damageTracking)
+				screen.checkDamage();
 			screen.render(renderer);
 
 			//don't draw tooltip if mouse has itemStack
@@ -791,6 +826,7 @@ public abstract class EGOGui extends GuiScreen implements ISize
 	@Override
 	public void onGuiClosed()
 	{
+		renderer.deleteRenderCaches();
 		//		if (inventoryContainer != null)
 		//			inventoryContainer.onContainerClosed(this.mc.player);
 	}
@@ -24,6 +24,7 @@
 
 package net.malisis.ego.gui;
 
+import net.malisis.ego.gui.element.LayoutNode;
 import net.malisis.ego.gui.element.position.Position;
 import net.malisis.ego.gui.element.position.Position.IPosition;
 import org.lwjgl.input.Mouse;
@@ -37,6 +38,8 @@ public class MousePosition implements IPosition
 	private int y = 0;
 	/** Last known position of the mouse. */
 	protected int xPrevious, yPrevious;
+	/** Layout node tracking the position of the mouse. */
+	private final LayoutNode state = new LayoutNode();
 
 	public void udpate(EGOGui gui)
 	{
@@ -53,17 +56,22 @@ public class MousePosition implements IPosition
 			x = Mouse.getX() * gui.width / gui.mc.displayWidth;
 			y = gui.height - Mouse.getY() * gui.height / gui.mc.displayHeight - 1;
 		}
+
+		if (hasChanged())
+			state.invalidate();
 	}
 
 	@Override
 	public int y()
 	{
+		state.track();
 		return y;
 	}
 
 	@Override
 	public int x()
 	{
+		state.track();
 		return x;
 	}
 
@@ -33,6 +33,7 @@ import net.malisis.ego.gui.component.container.UIContainer;
 import net.malisis.ego.gui.component.decoration.UILabel;
 import net.malisis.ego.gui.component.interaction.UISelect;
 import net.malisis.ego.gui.element.IClipable;
+import net.malisis.ego.gui.element.LayoutNode;
 import net.malisis.ego.gui.element.Margin;
 import net.malisis.ego.gui.element.Padding;
 import net.malisis.ego.gui.element.position.Position;
@@ -173,16 +174,21 @@ public class DebugComponent extends UIContainer
 	private String cachedText()
 	{
 		int fps = Minecraft.getDebugFPS();
-		int dc = EGOGui.current() != null ?
-				 EGOGui.current()
-					   .getRenderer().lastDrawCount :
-				 0;
+		GuiRenderer renderer = EGOGui.current() != null ?
+							   EGOGui.current()
+									 .getRenderer() :
+							   null;
+		int dc = renderer != null ? renderer.lastDrawCount : 0;
+		float ms = renderer != null ? renderer.lastFrameTime / 1000000F : 0;
 		ChatFormatting pos = Position.CACHED ? ChatFormatting.DARK_GREEN : ChatFormatting.DARK_RED;
 		ChatFormatting size = Size.CACHED ? ChatFormatting.DARK_GREEN : ChatFormatting.DARK_RED;
 		ChatFormatting text = GuiText.CACHED ? ChatFormatting.DARK_GREEN : ChatFormatting.DARK_RED;
+		ChatFormatting layout = LayoutNode.TRACKED ? ChatFormatting.DARK_GREEN : ChatFormatting.DARK_RED;
+		ChatFormatting batched = renderer != null && renderer.isBatched() ? ChatFormatting.DARK_GREEN : ChatFormatting.DARK_RED;
 
-		return "FPS: " + fps + " (" + dc + ")\n" + pos + "Position" + ChatFormatting.RESET + "\n" + size + "Size" + ChatFormatting.RESET
-				+ "\n" + text + "Text";
+		return "FPS: " + fps + " (" + dc + " draws, " + String.format("%.2f", ms) + "ms)\n" + pos + "Position" + ChatFormatting.RESET
+				+ "\n" + size + "Size" + ChatFormatting.RESET + "\n" + text + "Text" + ChatFormatting.RESET + "\n" + layout + "Tracked layout" + ChatFormatting.RESET + "\n" + batched
+				+ "Batched";
 	}
 
 	@Override
@@ -279,6 +285,14 @@ public class DebugComponent extends UIContainer
 			case Keyboard.KEY_T:
 				GuiText.CACHED = !GuiText.CACHED;
 				break;
+			case Keyboard.KEY_L:
+				LayoutNode.TRACKED = !LayoutNode.TRACKED;
+				break;
+			case Keyboard.KEY_B:
+				getGui().getRenderer()
+						.setBatched(!getGui().getRenderer()
+											 .isBatched());
+				break;
 			case Keyboard.KEY_DOWN:
 				isTop = false;
 				setPosition(Position.bottomLeft(this));
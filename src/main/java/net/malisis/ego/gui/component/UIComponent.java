@@ -29,6 +29,7 @@ import static com.google.common.base.Preconditions.*;
 import net.malisis.ego.gui.EGOGui;
 import net.malisis.ego.gui.component.container.UIContainer;
 import net.malisis.ego.gui.component.content.IContent;
+import net.malisis.ego.gui.component.content.IContent.IContentHolder;
 import net.malisis.ego.gui.component.control.IControlComponent;
 import net.malisis.ego.gui.component.decoration.UITooltip;
 import net.malisis.ego.gui.element.IClipable;
@@ -36,6 +37,7 @@ import net.malisis.ego.gui.element.IClipable.ClipArea;
 import net.malisis.ego.gui.element.IKeyListener;
 import net.malisis.ego.gui.element.IOffset;
 import net.malisis.ego.gui.element.ISpace;
+import net.malisis.ego.gui.element.LayoutNode;
 import net.malisis.ego.gui.element.Margin;
 import net.malisis.ego.gui.element.Padding;
 import net.malisis.ego.gui.element.Padding.IPadded;
@@ -64,6 +66,7 @@ import net.malisis.ego.gui.event.mouse.MouseEvent.MouseUp;
 import net.malisis.ego.gui.event.mouse.MouseEvent.ScrollWheel;
 import net.malisis.ego.gui.render.GuiRenderer;
 import net.malisis.ego.gui.render.IGuiRenderer;
+import net.malisis.ego.gui.render.RenderCache;
 import net.minecraft.util.text.TextFormatting;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.util.Strings;
@@ -119,10 +122,14 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 	protected UITooltip tooltip;
 	/** Determines whether this {@link UIComponent} is visible. */
 	protected BooleanSupplier visible = () -> true;
+	/** Whether the visibility was set as a constant, rather than a rule. */
+	private boolean constantVisibility = true;
 	/** Determines whether this {@link UIComponent} is enabled. If set to false, will cancel any {@link GuiEvent events} received. */
 	protected BooleanSupplier enabled = () -> true;
 	/** Hover state of this {@link UIComponent}. */
 	protected boolean hovered = false;
+	/** Whether the hover state of this {@link UIComponent} was queried, meaning its appearance may depend on it. */
+	private boolean hoverDependent = false;
 	/** Focus state of this {@link UIComponent}. */
 	protected boolean focused = false;
 
@@ -130,6 +137,13 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 	protected IGuiRenderer backgroundRenderer = null;
 	/** Rendering for the foreground of this {@link UIComponent}. */
 	protected IGuiRenderer foregroundRenderer = null;
+	/** Cached rendering of this {@link UIComponent} and its children. Only set if static. */
+	protected RenderCache renderCache = null;
+	/** Layout state of this {@link UIComponent} (position, size, padding, margin, parent, visibility and control components). */
+	protected final LayoutNode layoutState = new LayoutNode();
+	/** State of this {@link UIComponent} at the last {@link #checkDamage()}. */
+	private int lastX, lastY, lastWidth, lastHeight, lastZIndex, lastAlpha;
+	private boolean lastVisible, lastEnabled;
 
 	private Object data;
 
@@ -162,6 +176,10 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 	{
 		//if(fireEvent(this, this.position, position);
 		this.position = checkNotNull(position);
+		if (parent instanceof UIContainer)
+			((UIContainer) parent).onChildBoundsChanged(this);
+		invalidateLayout();
+		invalidateRender();
 	}
 
 	/**
@@ -173,6 +191,7 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 	@Nonnull
 	public IPosition position()
 	{
+		layoutState.track();
 		return position;
 	}
 
@@ -221,6 +240,10 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 	{
 		//if(fireEvent(this, this.size, size)
 		this.size = checkNotNull(size);
+		if (parent instanceof UIContainer)
+			((UIContainer) parent).onChildBoundsChanged(this);
+		invalidateLayout();
+		invalidateRender();
 	}
 
 	/**
@@ -232,6 +255,7 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 	@Nonnull
 	public ISize size()
 	{
+		layoutState.track();
 		return size;
 	}
 
@@ -247,12 +271,15 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 		if (padding == null)
 			padding = Padding.NO_PADDING;
 		this.padding = padding;
+		invalidateLayout();
+		invalidateRender();
 	}
 
 	@Nonnull
 	@Override
 	public Padding padding()
 	{
+		layoutState.track();
 		return padding;
 	}
 
@@ -261,16 +288,20 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 		if (margin == null)
 			margin = Margin.NO_MARGIN;
 		this.margin = margin;
+		invalidateLayout();
+		invalidateRender();
 	}
 
 	@Nonnull
 	public Margin margin()
 	{
+		layoutState.track();
 		return margin;
 	}
 
 	public int controlSpace(ToIntFunction<ISpace> func)
 	{
+		layoutState.track();
 		if (controlComponents.size() == 0)
 			return 0;
 		return controlComponents.stream()
@@ -286,7 +317,13 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 	 */
 	public void setZIndex(int zIndex)
 	{
+		if (zIndex == this.zIndex)
+			return;
+
 		this.zIndex = zIndex;
+		if (parent instanceof UIContainer)
+			((UIContainer) parent).onZIndexChanged(this);
+		invalidateRender();
 	}
 
 	/**
@@ -304,6 +341,8 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 	 */
 	public void hover()
 	{
+		if (hoverDependent)
+			invalidateRender();
 		fireEvent(new MouseOver<>(this));
 	}
 
@@ -312,6 +351,8 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 	 */
 	public void unhover()
 	{
+		if (hoverDependent)
+			invalidateRender();
 		fireEvent(new MouseOut<>(this));
 	}
 
@@ -322,6 +363,7 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 	 */
 	public boolean isHovered()
 	{
+		hoverDependent = true;
 		return isVisible() && EGOGui.getHoveredComponent() == this;
 	}
 
@@ -330,6 +372,7 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 	 */
 	public void focus()
 	{
+		invalidateRender();
 		fireEvent(new FocusEvent<>(this));
 	}
 
@@ -338,6 +381,7 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 	 */
 	public void unfocus()
 	{
+		invalidateRender();
 		fireEvent(new UnfocusEvent<>(this));
 	}
 
@@ -359,6 +403,7 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 	@Override
 	public UIComponent getParent()
 	{
+		layoutState.track();
 		return parent;
 	}
 
@@ -370,6 +415,8 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 	public void setParent(UIComponent parent)
 	{
 		this.parent = parent;
+		invalidateLayout();
+		invalidateRender();
 		//fireEvent(new ContentUpdate<>(this));
 	}
 
@@ -380,6 +427,10 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 	 */
 	public boolean isVisible()
 	{
+		if (constantVisibility)
+			layoutState.track();
+		else
+			LayoutNode.volatileRead();
 		return visible.getAsBoolean();
 	}
 
@@ -391,6 +442,9 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 	public void setVisible(BooleanSupplier supplier)
 	{
 		visible = checkNotNull(supplier);
+		constantVisibility = false;
+		invalidateLayout();
+		invalidateRender();
 	}
 
 	/**
@@ -401,6 +455,7 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 	public void setVisible(boolean visible)
 	{
 		setVisible(() -> visible);
+		constantVisibility = true;
 	}
 
 	/**
@@ -431,6 +486,7 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 	public void setEnabled(BooleanSupplier supplier)
 	{
 		enabled = checkNotNull(supplier);
+		invalidateRender();
 	}
 
 	/**
@@ -500,6 +556,7 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 	public void setColor(int color)
 	{
 		this.color = color;
+		invalidateRender();
 	}
 
 	public int getColor()
@@ -516,6 +573,7 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 	public void setAlpha(int alpha)
 	{
 		this.alpha = alpha;
+		invalidateRender();
 	}
 
 	/**
@@ -539,6 +597,7 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 	public void setBackground(IGuiRenderer render)
 	{
 		backgroundRenderer = render;
+		invalidateRender();
 	}
 
 	/**
@@ -549,6 +608,145 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 	public void setForeground(IGuiRenderer render)
 	{
 		foregroundRenderer = render;
+		invalidateRender();
+	}
+
+	/**
+	 * Sets whether this {@link UIComponent} is static.<br>
+	 * The rendering of a static component and its children is recorded into a display list once, and replayed every frame until it
+	 * gets invalidated by a change of position, size, text or state, or by {@link #invalidateRender()}.<br>
+	 * The renderers of the component and its children are {@link IGuiRenderer#pollChanges() polled} before the recording is replayed,
+	 * so icons, colors and texts provided by suppliers are picked up. Renderers that can't be polled need {@link #invalidateRender()}
+	 * to be called when they change.
+	 *
+	 * @param isStatic whether this component is static
+	 */
+	public void setStatic(boolean isStatic)
+	{
+		if (isStatic == isStatic())
+			return;
+
+		if (isStatic)
+			renderCache = new RenderCache(this);
+		else
+		{
+			renderCache.delete();
+			renderCache = null;
+		}
+	}
+
+	/**
+	 * Checks whether this {@link UIComponent} is static.
+	 *
+	 * @return true if static
+	 */
+	public boolean isStatic()
+	{
+		return renderCache != null;
+	}
+
+	/**
+	 * Notifies this {@link UIComponent} and its parents that its rendering changed, so that any recorded rendering gets rebuilt.
+	 */
+	public void invalidateRender()
+	{
+		if (renderCache != null)
+			renderCache.invalidate();
+		if (parent != null)
+			parent.invalidateRender();
+	}
+
+	/**
+	 * Polls the background and foreground renderers, and the content of this {@link UIComponent} for changes of the values provided
+	 * by suppliers.
+	 *
+	 * @return true, if the rendering changed
+	 */
+	protected boolean pollRenderers()
+	{
+		//all renderers need to be polled to store their current state
+		boolean changed = backgroundRenderer != null && backgroundRenderer.pollChanges();
+		changed |= foregroundRenderer != null && foregroundRenderer.pollChanges();
+		if (this instanceof IContentHolder)
+		{
+			IContent content = ((IContentHolder) this).content();
+			changed |= content != null && content != foregroundRenderer && content.pollChanges();
+		}
+		return changed;
+	}
+
+	/**
+	 * Polls the renderers of this {@link UIComponent} and its children, and calls {@link #invalidateRender()} when they changed.<br>
+	 * Called before a recorded rendering is replayed.
+	 */
+	public void pollRenderChanges()
+	{
+		if (!isVisible())
+			return;
+
+		if (pollRenderers())
+			invalidateRender();
+
+		for (IControlComponent c : controlComponents)
+		{
+			if (c instanceof UIComponent)
+				((UIComponent) c).pollRenderChanges();
+		}
+	}
+
+	/**
+	 * Notifies the positions and sizes depending on the layout state of this {@link UIComponent} that it changed, so that they get
+	 * computed again when {@link LayoutNode#TRACKED tracked}.
+	 */
+	public void invalidateLayout()
+	{
+		layoutState.invalidate();
+	}
+
+	/**
+	 * Checks whether the state of this {@link UIComponent} changed since the last call, and calls {@link #invalidateRender()} if it
+	 * did.<br>
+	 * Polls the values provided by suppliers (position, size, zIndex, visibility, enabled state) as well as the renderers of the
+	 * component (icons, colors, texts), so that cached renderings get rebuilt only for the parts of the screen that actually changed.
+	 */
+	public void checkDamage()
+	{
+		boolean visible = isVisible();
+		if (!visible && !lastVisible)
+			return;
+
+		IPosition screenPosition = screenPosition();
+		int x = screenPosition.x();
+		int y = screenPosition.y();
+		int width = size().width();
+		int height = size().height();
+		boolean enabled = isEnabled();
+		int alpha = getAlpha();
+		//effective zIndex, as it can be inherited from the parent
+		int zIndex = zIndex();
+		if (x != lastX || y != lastY || width != lastWidth || height != lastHeight || zIndex != lastZIndex || alpha != lastAlpha
+				|| visible != lastVisible || enabled != lastEnabled)
+		{
+			lastX = x;
+			lastY = y;
+			lastWidth = width;
+			lastHeight = height;
+			lastZIndex = zIndex;
+			lastAlpha = alpha;
+			lastVisible = visible;
+			lastEnabled = enabled;
+			invalidateRender();
+		}
+
+		//icons, colors and texts provided by suppliers
+		if (pollRenderers())
+			invalidateRender();
+
+		for (IControlComponent c : controlComponents)
+		{
+			if (c instanceof UIComponent)
+				((UIComponent) c).checkDamage();
+		}
 	}
 
 	public void attachData(Object data)
@@ -784,6 +982,8 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 	{
 		controlComponents.add(component);
 		component.setParent(this);
+		invalidateLayout();
+		invalidateRender();
 	}
 
 	/**
@@ -798,6 +998,8 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 
 		controlComponents.remove(component);
 		component.setParent(null);
+		invalidateLayout();
+		invalidateRender();
 	}
 
 	/**
@@ -810,6 +1012,8 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 			component.setParent(null);
 		}
 		controlComponents.clear();
+		invalidateLayout();
+		invalidateRender();
 	}
 
 	/**
@@ -843,6 +1047,14 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 		//relative position in case super renders other components.
 		UIComponent oldComponent = renderer.currentComponent;
 
+		//replay the recorded rendering if nothing changed
+		if (renderCache != null)
+		{
+			if (renderCache.render(renderer))
+				return;
+			renderCache.startRecording(renderer);
+		}
+
 		//draw background
 		if (backgroundRenderer != null)
 		{
@@ -871,6 +1083,9 @@ public class UIComponent implements IContent, IMouseListener, IKeyListener, IMou
 			controlComponents.forEach(c -> c.render(renderer));
 		}
 
+		if (renderCache != null)
+			renderCache.endRecording(renderer);
+
 		renderer.currentComponent = oldComponent;
 	}
 
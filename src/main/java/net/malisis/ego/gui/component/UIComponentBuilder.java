@@ -61,6 +61,7 @@ public abstract class UIComponentBuilder<BUILDER extends UIComponentBuilder<?, ?
 	protected BooleanSupplier visible = () -> true;
 	protected Function<COMPONENT, IGuiRenderer> background = null;
 	protected Function<COMPONENT, IGuiRenderer> foreground = null;
+	protected boolean isStatic = false;
 	protected Object data;
 
 	public UIComponentBuilder()
@@ -304,6 +305,12 @@ public abstract class UIComponentBuilder<BUILDER extends UIComponentBuilder<?, ?
 		return self();
 	}
 
+	public BUILDER staticRender()
+	{
+		isStatic = true;
+		return self();
+	}
+
 	public BUILDER movable()
 	{
 		return withControl(UIMoveHandle.builder()
@@ -354,6 +361,7 @@ public abstract class UIComponentBuilder<BUILDER extends UIComponentBuilder<?, ?
 			component.setBackground(background.apply(component));
 		if (foreground != null)
 			component.setForeground(foreground.apply(component));
+		component.setStatic(isStatic);
 
 		//extra data
 		if (data != null)
@@ -0,0 +1,213 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.ego.gui.component.container;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import net.malisis.ego.gui.EGOGui;
+import net.malisis.ego.gui.component.UIComponent;
+import net.malisis.ego.gui.element.LayoutNode;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Uniform grid indexing the children of a {@link UIContainer} by their bounds, so that {@link UIContainer#getComponentAt(int, int)}
+ * only needs to check the children overlapping the cell under the coordinates.<br>
+ * The grid works in the coordinates of the container content (not offset) and is rebuilt lazily. When the layout is
+ * {@link LayoutNode#TRACKED tracked}, the grid is built inside a {@link LayoutNode} computation, so it depends on the position and size of
+ * the children and is rebuilt when one of them changes. Otherwise, it is rebuilt at most once per frame.<br>
+ * Children with a fixed position are not indexed and always checked.
+ *
+ * @author Ordinastie
+ */
+public class ComponentGrid
+{
+	/** Maximum number of cells per child, to keep the grid small for sparse content. */
+	private static final int MAX_CELLS_PER_CHILD = 4;
+
+	private final UIContainer container;
+	/** Children per cell, in rendering order. */
+	private List<List<Entry>> cells = Lists.newArrayList();
+	/** Fixed children, in rendering order. */
+	private final List<Entry> unindexed = Lists.newArrayList();
+	private int originX, originY, columns, rows, cellSize;
+	/** Layout node the grid is built in, depending on the position and size of the children. */
+	private final LayoutNode node = new LayoutNode();
+	private boolean dirty = true;
+	private int counter = -1;
+
+	public ComponentGrid(UIContainer container)
+	{
+		this.container = container;
+	}
+
+	/**
+	 * Marks this {@link ComponentGrid} to be rebuilt on next query.
+	 */
+	public void invalidate()
+	{
+		dirty = true;
+		node.invalidate();
+	}
+
+	/**
+	 * Rebuilds this {@link ComponentGrid} if a child moved or was resized since it was last built.
+	 */
+	private void validate()
+	{
+		if (LayoutNode.TRACKED)
+		{
+			if (!dirty && !node.needsUpdate())
+				return;
+
+			node.startUpdate();
+			build();
+			node.endUpdate(false);
+			return;
+		}
+
+		//values are not tracked and can change every frame
+		if (dirty || EGOGui.needsUpdate(counter))
+			build();
+	}
+
+	private void build()
+	{
+		List<UIComponent> components = container.components();
+		cells.clear();
+		columns = 0;
+		rows = 0;
+		unindexed.clear();
+		dirty = false;
+		counter = EGOGui.counter;
+
+		int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+		long total = 0;
+		int count = 0;
+		for (UIComponent c : components)
+		{
+			if (c.fixed())
+				continue;
+			minX = Math.min(minX, c.x());
+			minY = Math.min(minY, c.y());
+			maxX = Math.max(maxX, c.x() + c.width());
+			maxY = Math.max(maxY, c.y() + c.height());
+			total += Math.max(c.width(), c.height());
+			count++;
+		}
+
+		if (count != 0)
+		{
+			originX = minX;
+			originY = minY;
+			cellSize = Math.max(4, (int) (total / count));
+			columns = (maxX - minX) / cellSize + 1;
+			rows = (maxY - minY) / cellSize + 1;
+			//grow cells for sparse content
+			while ((long) columns * rows > (long) count * MAX_CELLS_PER_CHILD && columns * rows > 1)
+			{
+				cellSize *= 2;
+				columns = (maxX - minX) / cellSize + 1;
+				rows = (maxY - minY) / cellSize + 1;
+			}
+			for (int i = 0; i < columns * rows; i++)
+				cells.add(Lists.newArrayList());
+		}
+
+		int order = 0;
+		for (UIComponent c : components)
+		{
+			Entry entry = new Entry(c, order++);
+			if (c.fixed())
+			{
+				unindexed.add(entry);
+				continue;
+			}
+
+			int fromX = (c.x() - originX) / cellSize;
+			int fromY = (c.y() - originY) / cellSize;
+			int toX = Math.min(columns - 1, (c.x() + c.width() - originX) / cellSize);
+			int toY = Math.min(rows - 1, (c.y() + c.height() - originY) / cellSize);
+			for (int cy = fromY; cy <= toY; cy++)
+				for (int cx = fromX; cx <= toX; cx++)
+					cells.get(cy * columns + cx)
+						 .add(entry);
+		}
+	}
+
+	/**
+	 * Gets the child {@link UIComponent} at the specified screen coordinates, with the highest zIndex.<br>
+	 * The zIndex of the component actually hit is compared, not the one of the child it belongs to.
+	 *
+	 * @param x the x
+	 * @param y the y
+	 * @return the component, or null if none
+	 */
+	public UIComponent getComponentAt(int x, int y)
+	{
+		validate();
+
+		int cx = x - container.screenPosition()
+							  .x() - container.offset()
+											  .x() - originX;
+		int cy = y - container.screenPosition()
+							  .y() - container.offset()
+											  .y() - originY;
+		List<Entry> cell = Collections.emptyList();
+		if (columns > 0 && cx >= 0 && cy >= 0 && cx / cellSize < columns && cy / cellSize < rows)
+			cell = cells.get(cy / cellSize * columns + cx / cellSize);
+
+		//the hit with the highest zIndex wins, then the last one in rendering order
+		Entry found = null;
+		UIComponent foundComponent = null;
+		for (Entry entry : Iterables.concat(cell, unindexed))
+		{
+			UIComponent c = entry.component.getComponentAt(x, y);
+			if (c == null)
+				continue;
+			int z = c.zIndex();
+			if (found == null || z > foundComponent.zIndex() || (z == foundComponent.zIndex() && entry.order > found.order))
+			{
+				found = entry;
+				foundComponent = c;
+			}
+		}
+
+		return foundComponent;
+	}
+
+	private static class Entry
+	{
+		private final UIComponent component;
+		private final int order;
+
+		private Entry(UIComponent component, int order)
+		{
+			this.component = component;
+			this.order = order;
+		}
+	}
+}
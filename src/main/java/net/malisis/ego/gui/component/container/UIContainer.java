@@ -28,6 +28,8 @@ import static com.google.common.base.Preconditions.*;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import net.malisis.ego.font.FontOptions;
 import net.malisis.ego.font.FontOptions.FontOptionsBuilder;
 import net.malisis.ego.gui.EGOGui;
@@ -41,11 +43,13 @@ import net.malisis.ego.gui.component.layout.ILayout;
 import net.malisis.ego.gui.component.scrolling.UIScrollBar;
 import net.malisis.ego.gui.component.scrolling.UIScrollBar.Type;
 import net.malisis.ego.gui.element.IClipable;
+import net.malisis.ego.gui.element.IClipable.ClipArea;
 import net.malisis.ego.gui.element.Padding;
 import net.malisis.ego.gui.element.position.Position;
 import net.malisis.ego.gui.element.position.Position.IPosition;
 import net.malisis.ego.gui.element.size.Size;
 import net.malisis.ego.gui.element.size.Size.ISize;
+import net.malisis.ego.gui.render.FramebufferCache;
 import net.malisis.ego.gui.render.GuiRenderer;
 import net.malisis.ego.gui.render.IGuiRenderer;
 import net.malisis.ego.gui.render.background.BoxBackground;
@@ -55,9 +59,11 @@ import net.malisis.ego.gui.text.GuiText;
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.Arrays;
-import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -79,6 +85,10 @@ public class UIContainer extends UIComponent implements IClipable, IScrollable,
 	//IClipable
 	/** Determines whether this {@link UIContainer} should clip its contents to its drawn area. */
 	protected boolean clipContent = true;
+	/** Offscreen rendering of the content. Only set if the content should be cached. */
+	protected FramebufferCache contentCache = null;
+	/** Spatial index of the children used for hit-testing. Only set if enabled. */
+	protected ComponentGrid componentGrid = null;
 
 	protected final IPosition offset = UIScrollBar.scrollingOffset(this);
 
@@ -118,9 +128,40 @@ public class UIContainer extends UIComponent implements IClipable, IScrollable,
 
 	// #end getters/setters
 
+	/**
+	 * Gets the components of this {@link UIContainer}, ordered by zIndex.
+	 *
+	 * @return the components
+	 */
 	public List<UIComponent> components()
 	{
-		return ImmutableList.copyOf(content.components);
+		ImmutableList.Builder<UIComponent> builder = ImmutableList.builder();
+		content.layers.values()
+					  .forEach(builder::addAll);
+		return builder.build();
+	}
+
+	/**
+	 * Called when the zIndex of a child {@link UIComponent} changed, to move it to its new layer.
+	 *
+	 * @param component the component
+	 */
+	public void onZIndexChanged(UIComponent component)
+	{
+		content.move(component);
+		if (component instanceof UIContainer)
+			((UIContainer) component).content.relayer();
+		invalidateComponentGrid();
+	}
+
+	/**
+	 * Called when the position or size of a child {@link UIComponent} changed.
+	 *
+	 * @param component the component
+	 */
+	public void onChildBoundsChanged(UIComponent component)
+	{
+		invalidateComponentGrid();
 	}
 
 	/**
@@ -171,13 +212,21 @@ public class UIContainer extends UIComponent implements IClipable, IScrollable,
 		if (shouldClipContent() && !getClipArea().isInside(x, y))
 			return superComp;
 
-		return content.components.stream()
-								 .map(c -> c.getComponentAt(x, y))
-								 .filter(Objects::nonNull)
-								 //.filter(UIComponent::isEnabled)
-								 .sorted(Comparator.comparingInt(UIComponent::zIndex))
-								 .reduce((a, b) -> b)
-								 .orElse(superComp);
+		if (componentGrid != null)
+		{
+			UIComponent c = componentGrid.getComponentAt(x, y);
+			return c != null ? c : superComp;
+		}
+
+		//the hit with the highest zIndex wins, a deep hit can be above or below the layer of its ancestor
+		UIComponent found = null;
+		for (UIComponent component : content.components)
+		{
+			UIComponent c = component.getComponentAt(x, y);
+			if (c != null && (found == null || c.zIndex() >= found.zIndex()))
+				found = c;
+		}
+		return found != null ? found : superComp;
 	}
 
 	//#region IClipable
@@ -209,6 +258,99 @@ public class UIContainer extends UIComponent implements IClipable, IScrollable,
 
 	//#end IClipable
 
+	/**
+	 * Sets whether this {@link UIContainer} should render its content into a framebuffer, and draw it as a single quad until the
+	 * content changes, is scrolled or resized.<br>
+	 * Only applies when the content is clipped. Values provided by suppliers are not polled while the cached content is drawn, so
+	 * {@link #invalidateRender()} should be called when they change.
+	 *
+	 * @param cacheContent if true, cache the contents
+	 */
+	public void setCacheContent(boolean cacheContent)
+	{
+		if (cacheContent == shouldCacheContent())
+			return;
+
+		if (cacheContent)
+			contentCache = new FramebufferCache();
+		else
+		{
+			contentCache.delete();
+			contentCache = null;
+		}
+	}
+
+	/**
+	 * Checks whether this {@link UIContainer} should cache its contents.
+	 *
+	 * @return true, if should cache contents
+	 */
+	public boolean shouldCacheContent()
+	{
+		return contentCache != null;
+	}
+
+	/**
+	 * Sets whether this {@link UIContainer} should index its children by position for hit-testing.<br>
+	 * Useful for containers with a large number of children, like big slot grids. The index is rebuilt when children are added or
+	 * removed, and when the position or size of a child changes, including values provided by suppliers. See {@link ComponentGrid}.
+	 *
+	 * @param useGrid if true, index the children
+	 */
+	public void setComponentGrid(boolean useGrid)
+	{
+		componentGrid = useGrid ? new ComponentGrid(this) : null;
+	}
+
+	/**
+	 * Checks whether this {@link UIContainer} indexes its children by position.
+	 *
+	 * @return true, if children are indexed
+	 */
+	public boolean hasComponentGrid()
+	{
+		return componentGrid != null;
+	}
+
+	/**
+	 * Marks the spatial index of the children to be rebuilt.
+	 */
+	public void invalidateComponentGrid()
+	{
+		if (componentGrid != null)
+			componentGrid.invalidate();
+	}
+
+	@Override
+	public void invalidateRender()
+	{
+		if (contentCache != null)
+			contentCache.invalidate();
+		super.invalidateRender();
+	}
+
+	@Override
+	public void pollRenderChanges()
+	{
+		super.pollRenderChanges();
+		if (!isVisible())
+			return;
+
+		for (UIComponent component : content.components)
+			component.pollRenderChanges();
+	}
+
+	@Override
+	public void checkDamage()
+	{
+		super.checkDamage();
+		if (!isVisible())
+			return;
+
+		for (UIComponent component : content.components)
+			component.checkDamage();
+	}
+
 	/**
 	 * Adds components to this {@link UIContainer}.
 	 *
@@ -231,8 +373,11 @@ public class UIContainer extends UIComponent implements IClipable, IScrollable,
 		if (component == null || component.getParent() != this)
 			return;
 
-		content.components.remove(component);
+		content.remove(component);
 		component.setParent(null);
+		invalidateComponentGrid();
+		invalidateLayout();
+		invalidateRender();
 
 		if (layout != null)
 			layout.remove(component);
@@ -247,7 +392,10 @@ public class UIContainer extends UIComponent implements IClipable, IScrollable,
 		{
 			component.setParent(null);
 		}
-		content.components.clear();
+		content.clear();
+		invalidateRender();
+		invalidateComponentGrid();
+		invalidateLayout();
 		if (layout != null)
 			layout.clear();
 	}
@@ -314,23 +462,99 @@ public class UIContainer extends UIComponent implements IClipable, IScrollable,
 
 	public class ContainerContent implements IContent, IGuiRenderer
 	{
-		/** List of {@link UIComponent} inside this {@link UIContainer}. */
-		protected final List<UIComponent> components = Lists.newArrayList();
+		/** Set of {@link UIComponent} inside this {@link UIContainer}. */
+		protected final Set<UIComponent> components = Sets.newLinkedHashSet();
+		/** {@link UIComponent} inside this {@link UIContainer}, grouped by zIndex, in insertion order. */
+		protected final TreeMap<Integer, List<UIComponent>> layers = Maps.newTreeMap();
+		/** Layer each {@link UIComponent} was put in, as its effective zIndex can change once it's removed. */
+		protected final Map<UIComponent, Integer> layerKeys = Maps.newHashMap();
 		protected ISize size = Size.of(this::updateWidth, this::updateHeight);
 
 		public void add(UIComponent component)
 		{
-			if (components.contains(component))
+			if (!components.add(component))
 				return;
 
-			components.add(component);
-			components.sort(Comparator.comparingInt(UIComponent::zIndex));
+			//parent first, the effective zIndex can be inherited
 			component.setParent(getParent());
+			addToLayer(component);
+			relayerInherited(component);
+			invalidateComponentGrid();
+			invalidateLayout();
 
 			if (layout != null)
 				layout.add(component);
 		}
 
+		protected void remove(UIComponent component)
+		{
+			if (components.remove(component))
+				removeFromLayer(component);
+		}
+
+		protected void clear()
+		{
+			components.clear();
+			layers.clear();
+			layerKeys.clear();
+		}
+
+		protected void move(UIComponent component)
+		{
+			if (!components.contains(component))
+				return;
+
+			removeFromLayer(component);
+			addToLayer(component);
+		}
+
+		/**
+		 * Puts the components back in the layers matching their effective zIndex.<br>
+		 * Called when the zIndex of this {@link UIContainer} changed, as the components can inherit it.
+		 */
+		protected void relayer()
+		{
+			layers.clear();
+			layerKeys.clear();
+			for (UIComponent component : components)
+			{
+				addToLayer(component);
+				relayerInherited(component);
+			}
+			invalidateComponentGrid();
+		}
+
+		/**
+		 * Relayers the content of the component if it's a {@link UIContainer} inheriting its zIndex.
+		 *
+		 * @param component the component
+		 */
+		private void relayerInherited(UIComponent component)
+		{
+			if (component instanceof UIContainer && ((UIContainer) component).zIndex == 0)
+				((UIContainer) component).content.relayer();
+		}
+
+		private void addToLayer(UIComponent component)
+		{
+			int zIndex = component.zIndex();
+			layerKeys.put(component, zIndex);
+			layers.computeIfAbsent(zIndex, z -> Lists.newArrayList())
+				  .add(component);
+		}
+
+		private void removeFromLayer(UIComponent component)
+		{
+			Integer zIndex = layerKeys.remove(component);
+			if (zIndex == null)
+				return;
+
+			List<UIComponent> layer = layers.get(zIndex);
+			layer.remove(component);
+			if (layer.isEmpty())
+				layers.remove(zIndex);
+		}
+
 		@Override
 		public UIContainer getParent()
 		{
@@ -353,6 +577,7 @@ public class UIContainer extends UIComponent implements IClipable, IScrollable,
 
 		private int updateWidth()
 		{
+			layoutState.track();
 			return components.stream()
 							 .filter(UIComponent::isVisible)
 							 .mapToInt(c -> c.x() + c.width())
@@ -363,6 +588,7 @@ public class UIContainer extends UIComponent implements IClipable, IScrollable,
 
 		private int updateHeight()
 		{
+			layoutState.track();
 			return components.stream()
 							 .filter(UIComponent::isVisible)
 							 .mapToInt(c -> c.y() + c.height())
@@ -373,7 +599,33 @@ public class UIContainer extends UIComponent implements IClipable, IScrollable,
 		@Override
 		public void render(GuiRenderer renderer)
 		{
-			components.forEach(c -> c.render(renderer));
+			if (contentCache != null)
+			{
+				//values from suppliers are not evaluated when the framebuffer is reused, damage tracking already polled them
+				EGOGui gui = getGui();
+				if (gui == null || !gui.isDamageTracking())
+				{
+					for (UIComponent component : components)
+						component.pollRenderChanges();
+				}
+
+				ClipArea area = IClipable.intersected(UIContainer.this);
+				//root container not clipping its content (the screen), nothing outside of its bounds is visible anyway
+				if (area.noClip() && UIContainer.this.parent == null)
+					area = ClipArea.from(UIContainer.this);
+				contentCache.render(renderer, area, offset, zIndex(), this::renderComponents);
+			}
+			else
+				renderComponents(renderer);
+		}
+
+		private void renderComponents(GuiRenderer renderer)
+		{
+			for (List<UIComponent> layer : layers.values())
+			{
+				for (UIComponent component : layer)
+					component.render(renderer);
+			}
 		}
 	}
 
@@ -390,6 +642,8 @@ public class UIContainer extends UIComponent implements IClipable, IScrollable,
 			extends UIComponentBuilder<BUILDER, CONTAINER>
 	{
 		protected boolean clipContent = true;
+		protected boolean cacheContent = false;
+		protected boolean componentGrid = false;
 		protected Function<CONTAINER, ILayout> layout = c -> null;
 		protected BiFunction<CONTAINER, UIScrollBar.Type, UIScrollBar> vertical = null;
 		protected BiFunction<CONTAINER, UIScrollBar.Type, UIScrollBar> horizontal = null;
@@ -445,6 +699,18 @@ public class UIContainer extends UIComponent implements IClipable, IScrollable,
 			return self();
 		}
 
+		public BUILDER cacheContent(boolean cache)
+		{
+			cacheContent = cache;
+			return self();
+		}
+
+		public BUILDER componentGrid()
+		{
+			componentGrid = true;
+			return self();
+		}
+
 		public BUILDER layout(Function<CONTAINER, ILayout> layout)
 		{
 			this.layout = checkNotNull(layout);
@@ -475,6 +741,8 @@ public class UIContainer extends UIComponent implements IClipable, IScrollable,
 			super.build(container);
 
 			container.setClipContent(clipContent);
+			container.setCacheContent(cacheContent);
+			container.setComponentGrid(componentGrid);
 			container.setLayout(layout.apply(container));
 			if (vertical != null)
 				vertical.apply(container, Type.VERTICAL);
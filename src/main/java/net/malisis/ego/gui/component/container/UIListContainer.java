@@ -26,18 +26,27 @@ package net.malisis.ego.gui.component.container;
 
 import static com.google.common.base.Preconditions.*;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import net.malisis.ego.gui.component.UIComponent;
 import net.malisis.ego.gui.component.decoration.UILabel;
 import net.malisis.ego.gui.component.layout.RowLayout;
+import net.malisis.ego.gui.component.scrolling.UIScrollBar;
+import net.malisis.ego.gui.element.LayoutNode;
+import net.malisis.ego.gui.element.Padding;
+import net.malisis.ego.gui.element.position.Position;
+import net.malisis.ego.gui.element.size.Size;
+import net.malisis.ego.gui.element.size.Size.ISize;
 import net.malisis.ego.gui.event.ValueChange;
 import net.malisis.ego.gui.event.ValueChange.IValueChangeBuilder;
 import net.malisis.ego.gui.render.GuiRenderer;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 
@@ -59,14 +68,48 @@ public class UIListContainer<S> extends UIContainer
 	protected boolean deselectable = false;
 	protected S selected;
 
+	/** Whether only the components for the visible elements are created. */
+	protected boolean virtualized = false;
+	/** Fixed height of the rows when virtualized. 0 means the rows are measured. */
+	protected int rowHeight = 0;
+	/** Rebinds a recycled row component to another element when virtualized. If null, rows are not recycled. */
+	protected BiConsumer<UIComponent, S> rowBinder = UIListContainer::bindLabel;
+	/** Elements, with random access, when virtualized. */
+	protected List<S> elementList = Collections.emptyList();
+	/** Heights of the rows, when virtualized. */
+	protected RowHeights rowHeights = new RowHeights(0, 0);
+	/** Components bound to the rows between firstRow and lastRow, when virtualized. */
+	protected final List<UIComponent> boundRows = Lists.newArrayList();
+	/** Unbound components that can be recycled, when virtualized. */
+	protected final List<UIComponent> rowPool = Lists.newArrayList();
+	protected int firstRow = 0;
+	protected int lastRow = -1;
+	protected final ISize virtualSize = Size.of(this::virtualWidth, this::virtualHeight);
+
 	public UIListContainer()
 	{
 	}
 
+	@SuppressWarnings("unchecked")
 	protected void buildElementComponents()
 	{
 		removeAll();
 		componentElements.clear();
+		boundRows.clear();
+		rowPool.clear();
+
+		if (virtualized)
+		{
+			elementList = elements instanceof List ? (List<S>) elements : Lists.newArrayList(elements);
+			rowHeights = new RowHeights(elementList.size(), rowHeight != 0 ? rowHeight + elementSpacing : 0);
+			firstRow = 0;
+			lastRow = -1;
+			elementsSize = elements.size();
+			updateRows();
+			if (selectable && !elementList.contains(selected))
+				selected = null;
+			return;
+		}
 
 		for (S element : elements)
 		{
@@ -99,6 +142,149 @@ public class UIListContainer<S> extends UIContainer
 		return elementComponentFactory.apply(this, element);
 	}
 
+	//#region Virtualization
+	/**
+	 * Binds the components to the elements visible in the viewport, recycling the components of the elements scrolled out.
+	 */
+	protected void updateRows()
+	{
+		if (elementList.isEmpty())
+			return;
+
+		int top = -offset().y();
+		int first = rowHeights.indexAt(top);
+		int last = rowHeights.indexAt(top + innerSize().height());
+		if (first == firstRow && last == lastRow)
+			return;
+
+		//release rows scrolled out
+		for (int i = firstRow; i <= lastRow; i++)
+		{
+			if (i < first || i > last)
+				releaseRow(boundRows.get(i - firstRow));
+		}
+
+		List<UIComponent> rows = Lists.newArrayListWithCapacity(last - first + 1);
+		boolean measured = false;
+		for (int i = first; i <= last; i++)
+		{
+			UIComponent comp = i >= firstRow && i <= lastRow ? boundRows.get(i - firstRow) : bindRow(i);
+			rows.add(comp);
+			if (rowHeight == 0)
+				measured |= rowHeights.set(i, comp.height() + elementSpacing);
+		}
+		boundRows.clear();
+		boundRows.addAll(rows);
+		firstRow = first;
+		lastRow = last;
+
+		layoutRows();
+		//measured heights moved the rows, the visible range needs to be checked again
+		if (measured)
+			updateRows();
+	}
+
+	protected UIComponent bindRow(int index)
+	{
+		S element = elementList.get(index);
+		UIComponent comp;
+		if (!rowPool.isEmpty())
+		{
+			comp = rowPool.remove(rowPool.size() - 1);
+			rowBinder.accept(comp, element);
+			comp.setVisible(true);
+		}
+		else
+		{
+			UIComponent created = createElementComponent(element);
+			if (selectable)
+				created.onLeftClick(e -> {
+					select(created);
+					return true;
+				});
+			add(created);
+			comp = created;
+		}
+
+		comp.attachData(element);
+		componentElements.put(element, comp);
+		return comp;
+	}
+
+	protected void releaseRow(UIComponent comp)
+	{
+		componentElements.remove(comp.getData());
+		if (rowBinder == null)
+		{
+			remove(comp);
+			return;
+		}
+
+		comp.setVisible(false);
+		rowPool.add(comp);
+	}
+
+	protected void layoutRows()
+	{
+		for (int i = firstRow; i <= lastRow; i++)
+		{
+			UIComponent comp = boundRows.get(i - firstRow);
+			comp.setPosition(Position.of(Padding.leftOf(this), Padding.topOf(this) + rowHeights.top(i)));
+		}
+	}
+
+	private int virtualWidth()
+	{
+		return content().size()
+						.width();
+	}
+
+	private int virtualHeight()
+	{
+		//row heights change without notice when measured
+		LayoutNode.volatileRead();
+		return Math.max(0, rowHeights.total() - elementSpacing);
+	}
+
+	/**
+	 * Scrolls this {@link UIListContainer} so that the element is visible.
+	 *
+	 * @param element the element
+	 */
+	public void scrollTo(S element)
+	{
+		UIScrollBar scrollbar = UIScrollBar.verticalScrollbar(this);
+		int index = elementList.indexOf(element);
+		if (scrollbar == null || index == -1)
+			return;
+
+		int top = rowHeights.top(index);
+		int viewport = innerSize().height();
+		int scroll = -offset().y();
+		if (top >= scroll && rowHeights.top(index + 1) <= scroll + viewport)
+			return;
+
+		int diff = virtualHeight() - viewport;
+		if (diff > 0)
+			scrollbar.scrollTo(Math.min((float) top / diff, 1));
+		updateRows();
+	}
+
+	/**
+	 * Binds the default {@link UILabel} row component to another element.
+	 */
+	private static <S> void bindLabel(UIComponent component, S element)
+	{
+		((UILabel) component).setText(Objects.toString(element));
+	}
+
+	@Override
+	public ISize contentSize()
+	{
+		return virtualized ? virtualSize : super.contentSize();
+	}
+	//#end Virtualization
+
 	public void setElements(Collection<S> elements)
 	{
 		this.elements = elements != null ? elements : Collections.emptyList();
@@ -110,19 +296,77 @@ public class UIListContainer<S> extends UIContainer
 		return elements;
 	}
 
+	/**
+	 * Gets the {@link UIComponent} for the element.<br>
+	 * When virtualized, only the elements visible have a component.
+	 *
+	 * @param element the element
+	 * @return the component, or null if none
+	 */
 	public UIComponent getElementComponent(S element)
 	{
 		return componentElements.get(element);
 	}
 
+	/**
+	 * Sets the factory creating the components for the elements.<br>
+	 * The row binder is reset, so components are not recycled when virtualized unless a new binder is set.
+	 *
+	 * @param factory the factory
+	 */
 	public void setComponentFactory(BiFunction<UIListContainer<S>, S, UIComponent> factory)
 	{
 		elementComponentFactory = factory;
+		rowBinder = null;
 	}
 
 	public void setElementSpacing(int elementSpacing)
 	{
-		setLayout(new RowLayout(this, elementSpacing));
+		this.elementSpacing = elementSpacing;
+		if (!virtualized)
+			setLayout(new RowLayout(this, elementSpacing));
+		elementsSize = -1;//ensure rebuilding
+	}
+
+	/**
+	 * Sets whether this {@link UIListContainer} should only create the components for the elements visible in the viewport.<br>
+	 * The components are recycled through the row binder when scrolling, and positioned according to their row height. If no row
+	 * height is set, rows are measured when bound.
+	 *
+	 * @param virtualized whether to virtualize the list
+	 */
+	public void setVirtualized(boolean virtualized)
+	{
+		this.virtualized = virtualized;
+		setLayout(virtualized ? null : new RowLayout(this, elementSpacing));
+		elementsSize = -1;//ensure rebuilding
+	}
+
+	public boolean isVirtualized()
+	{
+		return virtualized;
+	}
+
+	/**
+	 * Sets the fixed height of the rows, when virtualized. 0 means the rows are measured when bound.
+	 *
+	 * @param rowHeight the row height
+	 */
+	public void setRowHeight(int rowHeight)
+	{
+		this.rowHeight = rowHeight;
+		elementsSize = -1;//ensure rebuilding
+	}
+
+	/**
+	 * Sets the binder used to display another element in a recycled row component, when virtualized. If null, components are not
+	 * recycled and a new one is created for each element scrolled in.
+	 *
+	 * @param binder the binder
+	 */
+	public void setRowBinder(BiConsumer<UIComponent, S> binder)
+	{
+		rowBinder = binder;
 	}
 
 	public void setSelectable(boolean selectable)
@@ -145,12 +389,19 @@ public class UIListContainer<S> extends UIContainer
 	public UIComponent setSelected(S element)
 	{
 		UIComponent comp = getElementComponent(element);
-		selected = comp != null ? element : null;
+		if (virtualized)
+			selected = elementList.contains(element) ? element : null;
+		else
+			selected = comp != null ? element : null;
 		return comp;
 	}
 
 	public UIComponent select(S element)
 	{
+		//make sure the element is bound to a component
+		if (virtualized)
+			scrollTo(element);
+
 		//checks the element has a valid component in the list
 		UIComponent comp = getElementComponent(element);
 		if (comp == null)
@@ -188,10 +439,121 @@ public class UIListContainer<S> extends UIContainer
 	{
 		if (elements.size() != elementsSize)
 			buildElementComponents();
+		else if (virtualized)
+			updateRows();
 
 		super.render(renderer);
 	}
 
+	/**
+	 * Heights of the rows of a virtualized {@link UIListContainer}, stored in a Fenwick tree so that the top of a row and the row at
+	 * a given height are found in O(log n).<br>
+	 * Rows not measured yet use the height of the first row measured.
+	 */
+	protected static class RowHeights
+	{
+		private final int count;
+		private final int[] heights;
+		private final int[] tree;
+		private boolean measured;
+
+		public RowHeights(int count, int height)
+		{
+			this.count = count;
+			heights = new int[count];
+			tree = new int[count + 1];
+			measured = height != 0;
+			fill(height != 0 ? height : 1);
+		}
+
+		private void fill(int height)
+		{
+			//O(n) construction
+			for (int i = 0; i < count; i++)
+			{
+				heights[i] = height;
+				tree[i + 1] = height;
+			}
+			for (int i = 1; i <= count; i++)
+			{
+				int parent = i + (i & -i);
+				if (parent <= count)
+					tree[parent] += tree[i];
+			}
+		}
+
+		/**
+		 * Sets the height of the row.
+		 *
+		 * @param index the index of the row
+		 * @param height the height
+		 * @return true if the height changed
+		 */
+		public boolean set(int index, int height)
+		{
+			if (!measured)
+			{
+				//estimate unmeasured rows from the first one
+				measured = true;
+				fill(height);
+				return true;
+			}
+
+			int delta = height - heights[index];
+			if (delta == 0)
+				return false;
+
+			heights[index] = height;
+			for (int i = index + 1; i <= count; i += i & -i)
+				tree[i] += delta;
+			return true;
+		}
+
+		/**
+		 * Gets the top of the row, that is the sum of the heights of the rows before it.
+		 *
+		 * @param index the index of the row
+		 * @return the top
+		 */
+		public int top(int index)
+		{
+			int sum = 0;
+			for (int i = Math.min(index, count); i > 0; i -= i & -i)
+				sum += tree[i];
+			return sum;
+		}
+
+		public int total()
+		{
+			return top(count);
+		}
+
+		/**
+		 * Gets the index of the row at the specified height.
+		 *
+		 * @param y the height
+		 * @return the index of the row, clamped to the rows
+		 */
+		public int indexAt(int y)
+		{
+			if (count == 0)
+				return -1;
+
+			int index = 0;
+			int mask = Integer.highestOneBit(count);
+			for (; mask != 0; mask >>= 1)
+			{
+				int next = index + mask;
+				if (next <= count && tree[next] <= y)
+				{
+					index = next;
+					y -= tree[next];
+				}
+			}
+			return Math.max(0, Math.min(index, count - 1));
+		}
+	}
+
 	public static <S> UIListContainerBuilder<S> builder(Collection<S> collection)
 	{
 		return new UIListContainerBuilder<>(collection);
@@ -207,6 +569,10 @@ public class UIListContainer<S> extends UIContainer
 		protected boolean selectable = false;
 		protected boolean deselectable = false;
 		protected S selected;
+		protected boolean virtualized = false;
+		protected int rowHeight = 0;
+		protected BiConsumer<UIComponent, S> rowBinder;
+		protected boolean customFactory = false;
 
 		public UIListContainerBuilder(Collection<S> collection)
 		{
@@ -245,6 +611,25 @@ public class UIListContainer<S> extends UIContainer
 		public UIListContainerBuilder<S> factory(BiFunction<UIListContainer<S>, S, UIComponent> factory)
 		{
 			this.componentFactory = checkNotNull(factory);
+			customFactory = true;
+			return this;
+		}
+
+		public UIListContainerBuilder<S> virtualized()
+		{
+			virtualized = true;
+			return this;
+		}
+
+		public UIListContainerBuilder<S> rowHeight(int rowHeight)
+		{
+			this.rowHeight = rowHeight;
+			return this;
+		}
+
+		public UIListContainerBuilder<S> binder(BiConsumer<UIComponent, S> binder)
+		{
+			this.rowBinder = binder;
 			return this;
 		}
 
@@ -264,6 +649,15 @@ public class UIListContainer<S> extends UIContainer
 		{
 			UIListContainer<S> list = build(new UIListContainer<>());
 			list.setComponentFactory(componentFactory);
+			if (virtualized)
+			{
+				list.setVirtualized(true);
+				list.setRowHeight(rowHeight);
+				if (rowBinder != null)
+					list.setRowBinder(rowBinder);
+				else if (!customFactory)
+					list.setRowBinder(UIListContainer::bindLabel);
+			}
 			list.setElements(elements);
 			list.setSelectable(selectable);
 			list.setDeselectable(deselectable);
@@ -117,12 +117,14 @@ public class UIButton extends UIComponent implements IContentHolder, IContentSet
 	public void setPadding(Padding padding)
 	{
 		this.padding = padding;
+		invalidateLayout();
 	}
 
 	@Nonnull
 	@Override
 	public Padding padding()
 	{
+		layoutState.track();
 		return padding;
 	}
 
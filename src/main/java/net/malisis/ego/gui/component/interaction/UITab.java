@@ -265,7 +265,7 @@ public class UITab extends UIComponent implements IContentHolder
 		this.active = active;
 		container.setVisible(active);
 		container.setEnabled(active);
-		zIndex = container.zIndex() + (active ? 1 : 0);
+		setZIndex(container.zIndex() + (active ? 1 : 0));
 
 		//applies current color to attached parent
 		setColor(color);
@@ -36,6 +36,7 @@ import net.malisis.ego.gui.component.UIComponentBuilder;
 import net.malisis.ego.gui.component.content.IContent.IContentHolder;
 import net.malisis.ego.gui.element.IClipable;
 import net.malisis.ego.gui.element.IOffset;
+import net.malisis.ego.gui.element.LayoutNode;
 import net.malisis.ego.gui.element.Padding;
 import net.malisis.ego.gui.element.position.Position;
 import net.malisis.ego.gui.element.position.Position.IPosition;
@@ -849,6 +850,8 @@ public class UITextField extends UIComponent implements IContentHolder, IClipabl
 		@Override
 		public int x()
 		{
+			//cursor moves without notice
+			LayoutNode.volatileRead();
 			return guiText.x() + x;
 		}
 
@@ -860,6 +863,8 @@ public class UITextField extends UIComponent implements IContentHolder, IClipabl
 		@Override
 		public int y()
 		{
+			//cursor moves without notice
+			LayoutNode.volatileRead();
 			return guiText.y() + y;
 		}
 
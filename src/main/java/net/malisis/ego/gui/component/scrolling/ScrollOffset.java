@@ -24,6 +24,7 @@
 
 package net.malisis.ego.gui.component.scrolling;
 
+import net.malisis.ego.gui.element.LayoutNode;
 import net.malisis.ego.gui.element.position.Position.IPosition;
 
 /**
@@ -48,6 +49,8 @@ public class ScrollOffset implements IPosition
 
 	private int xOffset = 0;
 	private int yOffset = 0;
+	/** Layout node tracking the offsets. */
+	private final LayoutNode state = new LayoutNode();
 
 	public void addScrollbar(UIScrollBar scrollbar)
 	{
@@ -75,23 +78,29 @@ public class ScrollOffset implements IPosition
 
 	public void xUpdate(int x)
 	{
+		if (xOffset != x)
+			state.invalidate();
 		xOffset = x;
 	}
 
 	public void yUpdate(int y)
 	{
+		if (yOffset != y)
+			state.invalidate();
 		yOffset = y;
 	}
 
 	@Override
 	public int x()
 	{
+		state.track();
 		return xOffset;
 	}
 
 	@Override
 	public int y()
 	{
+		state.track();
 		return yOffset;
 	}
 
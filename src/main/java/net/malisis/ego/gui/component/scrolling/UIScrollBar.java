@@ -31,6 +31,7 @@ import net.malisis.ego.gui.component.UIComponent;
 import net.malisis.ego.gui.component.content.IContent;
 import net.malisis.ego.gui.component.control.IControlComponent;
 import net.malisis.ego.gui.component.control.IScrollable;
+import net.malisis.ego.gui.element.LayoutNode;
 import net.malisis.ego.gui.element.Padding;
 import net.malisis.ego.gui.element.position.Position;
 import net.malisis.ego.gui.element.position.Position.IPosition;
@@ -234,11 +235,15 @@ public abstract class UIScrollBar extends UIComponent implements IControlCompone
 	 */
 	public float offset()
 	{
+		//offset changes without notice when scrolling
+		LayoutNode.volatileRead();
 		return offset;
 	}
 
 	public int positionOffset()
 	{
+		//offset changes without notice when scrolling
+		LayoutNode.volatileRead();
 		if (offset == 0)
 			return 0;
 
@@ -0,0 +1,234 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.ego.gui.element;
+
+import com.google.common.collect.Lists;
+import net.malisis.ego.gui.EGOGui;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.IntSupplier;
+
+/**
+ * Node of the layout dependency graph.<br>
+ * When {@link #TRACKED}, the nodes read while a value is computed are recorded as its dependencies, and the value is only computed
+ * again once one of them changed. Nodes that don't read any other node are considered volatile and are computed again every frame,
+ * like when not tracked. Volatile nodes that have dependents are polled at the start of each frame so their changes are propagated.
+ * <br>
+ * State that is not held by a node (padding, margin, parent, etc.) should be exposed through a node that is {@link #track() tracked}
+ * when read and {@link #invalidate() invalidated} when changed. State that can only be known to change by polling it (like texts built
+ * from suppliers) uses a {@link #polled(Runnable) polled} node.<br>
+ * <br>
+ * A supplier reading both a tracked value and an arbitrary field (for example {@code () -> parent.width() - this.offset}) is not
+ * computed again when only the field changes. Such suppliers must either call {@link #volatileRead()}, or the owner must call
+ * {@link net.malisis.ego.gui.component.UIComponent#invalidateLayout()} when the field changes. Suppliers only reading arbitrary fields
+ * are volatile and stay correct.
+ *
+ * @author Ordinastie
+ */
+public class LayoutNode
+{
+	/** Whether layout values are only computed when their dependencies change. Otherwise they are computed once per frame. */
+	public static boolean TRACKED = false;
+	/** Node being computed. */
+	private static LayoutNode computing = null;
+	/** Volatile nodes with dependents. */
+	private static final Set<LayoutNode> polledNodes = Collections.newSetFromMap(new WeakHashMap<>());
+	private static final List<LayoutNode> polling = Lists.newArrayList();
+
+	/** Reads the value of this {@link LayoutNode}, computing it if needed. Null for state nodes. */
+	private final IntSupplier value;
+	/** Nodes that read this {@link LayoutNode} during their computation. */
+	private Set<LayoutNode> dependents = null;
+	/** Nodes read during the last computation of this {@link LayoutNode}. */
+	private List<LayoutNode> dependencies = null;
+	private boolean dirty = true;
+	private boolean isVolatile = false;
+	private boolean hasDependencies = false;
+	private int counter = -1;
+	private LayoutNode previous = null;
+
+	/**
+	 * Instantiates a new state {@link LayoutNode}.
+	 */
+	public LayoutNode()
+	{
+		this(null);
+	}
+
+	/**
+	 * Instantiates a new {@link LayoutNode} for a computed value.
+	 *
+	 * @param value reads the value, computing it if needed
+	 */
+	public LayoutNode(IntSupplier value)
+	{
+		this.value = value;
+	}
+
+	/**
+	 * Instantiates a new state {@link LayoutNode} whose changes are only known by polling.<br>
+	 * The node is polled at the start of each frame while it has dependents, and the poll must {@link #invalidate()} it when the state
+	 * changed.
+	 *
+	 * @param poll the poll
+	 * @return the layout node
+	 */
+	public static LayoutNode polled(Runnable poll)
+	{
+		LayoutNode node = new LayoutNode(() -> {
+			poll.run();
+			return 0;
+		});
+		node.isVolatile = true;
+		return node;
+	}
+
+	/**
+	 * Registers the node currently computed as a dependent of this {@link LayoutNode}.
+	 */
+	public void track()
+	{
+		if (computing == null || computing == this)
+			return;
+
+		computing.hasDependencies = true;
+		if (dependents == null)
+			dependents = Collections.newSetFromMap(new WeakHashMap<>());
+		if (dependents.add(computing))
+		{
+			if (computing.dependencies == null)
+				computing.dependencies = Lists.newArrayList();
+			computing.dependencies.add(this);
+		}
+		if (isVolatile && value != null)
+			polledNodes.add(this);
+	}
+
+	/**
+	 * Checks whether the value of this {@link LayoutNode} needs to be computed.
+	 *
+	 * @return true if the value needs to be computed
+	 */
+	public boolean needsUpdate()
+	{
+		return dirty || (isVolatile && EGOGui.needsUpdate(counter));
+	}
+
+	/**
+	 * Starts the computation of the value of this {@link LayoutNode}.<br>
+	 * Must be followed by {@link #endUpdate(boolean)}.
+	 */
+	public void startUpdate()
+	{
+		//dependencies are recorded again during the computation
+		if (dependencies != null)
+		{
+			for (LayoutNode node : dependencies)
+				node.dependents.remove(this);
+			dependencies.clear();
+		}
+
+		dirty = false;
+		counter = EGOGui.counter;
+		isVolatile = false;
+		hasDependencies = false;
+		previous = computing;
+		computing = this;
+	}
+
+	/**
+	 * Ends the computation of the value of this {@link LayoutNode}.
+	 *
+	 * @param changed whether the value changed
+	 */
+	public void endUpdate(boolean changed)
+	{
+		computing = previous;
+		previous = null;
+		if (!hasDependencies)
+			isVolatile = true;
+		if (!isVolatile)
+			polledNodes.remove(this);
+		else if (dependents != null && !dependents.isEmpty())
+			polledNodes.add(this);
+
+		if (changed)
+			invalidateDependents();
+	}
+
+	/**
+	 * Marks this {@link LayoutNode} and all its dependents to be computed again.
+	 */
+	public void invalidate()
+	{
+		dirty = true;
+		invalidateDependents();
+	}
+
+	private void invalidateDependents()
+	{
+		if (dependents == null)
+			return;
+
+		for (LayoutNode node : dependents)
+		{
+			if (!node.dirty)
+				node.invalidate();
+		}
+	}
+
+	/**
+	 * Marks the node currently computed as volatile, because it reads a value that can change without notice.
+	 */
+	public static void volatileRead()
+	{
+		if (computing != null)
+			computing.isVolatile = true;
+	}
+
+	/**
+	 * Computes the volatile nodes that have dependents, invalidating the dependents of those whose value changed.<br>
+	 * Called once at the start of each frame.
+	 */
+	public static void poll()
+	{
+		if (!TRACKED || polledNodes.isEmpty())
+			return;
+
+		polling.addAll(polledNodes);
+		for (LayoutNode node : polling)
+		{
+			//nothing depends on it anymore
+			if (node.dependents == null || node.dependents.isEmpty())
+				polledNodes.remove(node);
+			else
+				node.value.getAsInt();
+		}
+		polling.clear();
+	}
+}
@@ -37,6 +37,7 @@ import net.malisis.ego.gui.EGOGui;
 import net.malisis.ego.gui.component.UIComponent;
 import net.malisis.ego.gui.element.IChild;
 import net.malisis.ego.gui.element.IOffset;
+import net.malisis.ego.gui.element.LayoutNode;
 import net.malisis.ego.gui.element.size.Size.ISized;
 
 import java.util.function.IntSupplier;
@@ -205,6 +206,8 @@ public class Position
 	{
 		protected int counterX = -1;
 		protected int counterY = -1;
+		protected final LayoutNode nodeX = new LayoutNode(this::x);
+		protected final LayoutNode nodeY = new LayoutNode(this::y);
 
 		public CachedPosition(int x, int y, IntSupplier xFunction, IntSupplier yFunction)
 		{
@@ -214,6 +217,21 @@ public class Position
 		@Override
 		public int x()
 		{
+			if (LayoutNode.TRACKED && Position.CACHED && xFunction != null)
+			{
+				nodeX.track();
+				if (locked || !nodeX.needsUpdate())
+					return x;
+
+				int old = x;
+				nodeX.startUpdate();
+				locked = true;
+				x = updateX();
+				locked = false;
+				nodeX.endUpdate(x != old);
+				return x;
+			}
+
 			locked = Position.CACHED && !EGOGui.needsUpdate(counterX);
 			counterX = EGOGui.counter;
 			return super.x();
@@ -222,6 +240,21 @@ public class Position
 		@Override
 		public int y()
 		{
+			if (LayoutNode.TRACKED && Position.CACHED && yFunction != null)
+			{
+				nodeY.track();
+				if (locked || !nodeY.needsUpdate())
+					return y;
+
+				int old = y;
+				nodeY.startUpdate();
+				locked = true;
+				y = updateY();
+				locked = false;
+				nodeY.endUpdate(y != old);
+				return y;
+			}
+
 			locked = Position.CACHED && !EGOGui.needsUpdate(counterY);
 			counterY = EGOGui.counter;
 			return super.y();
@@ -27,6 +27,7 @@ package net.malisis.ego.gui.element.size;
 import net.malisis.ego.gui.EGOGui;
 import net.malisis.ego.gui.component.content.IContent.IContentHolder;
 import net.malisis.ego.gui.element.IChild;
+import net.malisis.ego.gui.element.LayoutNode;
 import net.malisis.ego.gui.element.position.Position.IPositioned;
 
 import java.util.function.IntSupplier;
@@ -191,6 +192,8 @@ public class Size
 	{
 		protected int counterWidth = -1;
 		protected int counterHeight = -1;
+		protected final LayoutNode nodeWidth = new LayoutNode(this::width);
+		protected final LayoutNode nodeHeight = new LayoutNode(this::height);
 
 		public CachedSize(int width, int height, IntSupplier widthFunction, IntSupplier heightFunction)
 		{
@@ -200,6 +203,21 @@ public class Size
 		@Override
 		public int width()
 		{
+			if (LayoutNode.TRACKED && Size.CACHED && widthFunction != null)
+			{
+				nodeWidth.track();
+				if (locked || !nodeWidth.needsUpdate())
+					return width;
+
+				int old = width;
+				nodeWidth.startUpdate();
+				locked = true;
+				width = updateWidth();
+				locked = false;
+				nodeWidth.endUpdate(width != old);
+				return width;
+			}
+
 			locked = Size.CACHED && !EGOGui.needsUpdate(counterWidth);
 			counterWidth = EGOGui.counter;
 			return super.width();
@@ -208,6 +226,21 @@ public class Size
 		@Override
 		public int height()
 		{
+			if (LayoutNode.TRACKED && Size.CACHED && heightFunction != null)
+			{
+				nodeHeight.track();
+				if (locked || !nodeHeight.needsUpdate())
+					return height;
+
+				int old = height;
+				nodeHeight.startUpdate();
+				locked = true;
+				height = updateHeight();
+				locked = false;
+				nodeHeight.endUpdate(height != old);
+				return height;
+			}
+
 			locked = Size.CACHED && !EGOGui.needsUpdate(counterHeight);
 			counterHeight = EGOGui.counter;
 			return super.height();
@@ -0,0 +1,139 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.ego.gui.render;
+
+import net.malisis.ego.gui.element.IClipable.ClipArea;
+import net.malisis.ego.gui.element.position.Position.IPosition;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.OpenGlHelper;
+import net.minecraft.client.shader.Framebuffer;
+
+/**
+ * Renders content into an offscreen {@link Framebuffer}, and draws the framebuffer texture as a single quad as long as nothing
+ * changed.<br>
+ * The rendering is invalidated with {@link #invalidate()}, or when the clipping area, the offset or the GUI scale changes.<br>
+ * The content is rendered directly if framebuffers are not supported, if the area is not clipped, while a display list is recorded,
+ * or when already rendering offscreen.
+ *
+ * @author Ordinastie
+ */
+public class FramebufferCache
+{
+	/** Framebuffer holding the rendered content. */
+	private Framebuffer framebuffer;
+	/** Whether the content needs to be rendered again. */
+	private boolean dirty = true;
+
+	/** State when last rendered. */
+	private int x, y, X, Y, offsetX, offsetY, scaleFactor, displayHeight;
+
+	/**
+	 * Invalidates the rendering, so that the content gets rendered again next frame.
+	 */
+	public void invalidate()
+	{
+		dirty = true;
+	}
+
+	/**
+	 * Checks whether the area, offset or scale changed since last frame, and stores the new state.
+	 *
+	 * @return true if the state changed
+	 */
+	private boolean updateState(GuiRenderer renderer, ClipArea area, IPosition offset)
+	{
+		int offsetX = offset.x();
+		int offsetY = offset.y();
+		int scaleFactor = renderer.isIgnoreScale() ? 1 : renderer.getScaleFactor();
+		int displayHeight = Minecraft.getMinecraft().displayHeight;
+
+		boolean changed = area.x != x || area.y != y || area.X != X || area.Y != Y || offsetX != this.offsetX || offsetY != this.offsetY
+				|| scaleFactor != this.scaleFactor || displayHeight != this.displayHeight;
+
+		x = area.x;
+		y = area.y;
+		X = area.X;
+		Y = area.Y;
+		this.offsetX = offsetX;
+		this.offsetY = offsetY;
+		this.scaleFactor = scaleFactor;
+		this.displayHeight = displayHeight;
+
+		return changed;
+	}
+
+	/**
+	 * Renders the content into the framebuffer if needed, then draws the framebuffer to the screen.
+	 *
+	 * @param renderer the renderer
+	 * @param area the area to render
+	 * @param offset the offset of the content
+	 * @param zIndex the z index for the drawn quad
+	 * @param content the content to render
+	 */
+	public void render(GuiRenderer renderer, ClipArea area, IPosition offset, int zIndex, IGuiRenderer content)
+	{
+		if (area.noClip() || area.fullClip() || renderer.isRecording() || renderer.isOffscreen() || !OpenGlHelper.isFramebufferEnabled())
+		{
+			content.render(renderer);
+			return;
+		}
+
+		if (updateState(renderer, area, offset))
+			dirty = true;
+
+		if (dirty)
+		{
+			int width = area.width() * scaleFactor;
+			int height = area.height() * scaleFactor;
+			if (framebuffer == null)
+			{
+				framebuffer = new Framebuffer(width, height, true);
+				renderer.registerFramebufferCache(this);
+			}
+			else if (framebuffer.framebufferWidth != width || framebuffer.framebufferHeight != height)
+				framebuffer.createBindFramebuffer(width, height);
+
+			//cleared first, as the content could be invalidated while rendering
+			dirty = false;
+			renderer.startOffscreen(framebuffer, area);
+			content.render(renderer);
+			renderer.endOffscreen();
+		}
+
+		renderer.drawFramebuffer(framebuffer, area, zIndex);
+	}
+
+	/**
+	 * Deletes the framebuffer used by this {@link FramebufferCache}.
+	 */
+	public void delete()
+	{
+		if (framebuffer != null)
+			framebuffer.deleteFramebuffer();
+		framebuffer = null;
+		dirty = true;
+	}
+}
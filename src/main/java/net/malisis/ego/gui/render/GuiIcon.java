@@ -119,6 +119,17 @@ public class GuiIcon
 		return location;
 	}
 
+	/**
+	 * Checks whether this {@link GuiIcon} should come from an atlas but currently has no place in it, because it was removed, discarded,
+	 * or not stitched yet.
+	 *
+	 * @return true, if the icon should not be rendered
+	 */
+	public boolean isMissing()
+	{
+		return location != null && texture == null;
+	}
+
 	public float u()
 	{
 		return u;
@@ -247,8 +258,12 @@ public class GuiIcon
 		this.y = y;
 		this.width = width;
 		this.height = height;
-		if (texture == null) //TODO: missing texture ?
+		if (texture == null)
+		{
+			//no place in the atlas anymore, don't keep pointing to the old region
+			u = v = U = V = 0;
 			return;
+		}
 		u = texture.pixelToU(x);
 		v = texture.pixelToV(y);
 		U = texture.pixelToU(x + width);
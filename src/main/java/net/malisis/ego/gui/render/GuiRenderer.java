@@ -24,9 +24,12 @@
 
 package net.malisis.ego.gui.render;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import net.malisis.ego.EGO;
 import net.malisis.ego.gui.EGOGui;
 import net.malisis.ego.gui.component.UIComponent;
+import net.malisis.ego.gui.element.IClipable;
 import net.malisis.ego.gui.element.IClipable.ClipArea;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.FontRenderer;
@@ -35,15 +38,23 @@ import net.minecraft.client.renderer.GlStateManager;
 import net.minecraft.client.renderer.RenderHelper;
 import net.minecraft.client.renderer.RenderItem;
 import net.minecraft.client.renderer.Tessellator;
+import net.minecraft.client.renderer.WorldVertexBufferUploader;
 import net.minecraft.client.renderer.block.model.IBakedModel;
 import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
 import net.minecraft.client.renderer.vertex.VertexFormat;
+import net.minecraft.client.shader.Framebuffer;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.text.Style;
 import net.minecraft.util.text.TextFormatting;
 import org.apache.logging.log4j.util.Strings;
 import org.lwjgl.opengl.GL11;
 
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+
 /**
  * Renderer to use for {@link EGOGui}.
  *
@@ -73,6 +84,34 @@ public class GuiRenderer
 	private float partialTick = 0;
 	public int lastDrawCount = 0;
 	private int currentDrawCount = 0;
+	/** Time spent rendering the last frame, in nanoseconds. */
+	public long lastFrameTime = 0;
+	private long frameStart = 0;
+
+	/** Whether the GUI should be drawn in a batch. */
+	private boolean batched = false;
+	/** Batches filled during the current frame. */
+	private final List<Batch> batches = Lists.newArrayList();
+	/** Batches drawn during previous frames, kept to reuse their buffers. */
+	private final List<Batch> batchPool = Lists.newArrayList();
+	/** Batch currently receiving the vertices. */
+	private Batch currentBatch;
+	/** Clipping areas currently applied while batching. */
+	private final Deque<ClipArea> clipAreas = new ArrayDeque<>();
+	/** Uploader used to draw the batches. */
+	private final WorldVertexBufferUploader uploader = new WorldVertexBufferUploader();
+
+	/** Display list currently being recorded, 0 if none. */
+	private int recordingList = 0;
+	/** {@link RenderCache RenderCaches} with an allocated display list. */
+	private final Set<RenderCache> renderCaches = Sets.newHashSet();
+	/** {@link FramebufferCache FramebufferCaches} with an allocated framebuffer. */
+	private final Set<FramebufferCache> framebufferCaches = Sets.newHashSet();
+
+	/** Framebuffer currently rendered into, null if rendering to the screen. */
+	private Framebuffer offscreen;
+	/** Position of the offscreen framebuffer on the screen, in pixels. */
+	private int offscreenX, offscreenY;
 
 	//	private static GuiShape rectangle = new SimpleGuiShape();
 
@@ -85,9 +124,23 @@ public class GuiRenderer
 		defaultGuiTexture = EGOGui.VANILLAGUI_TEXTURE;
 	}
 
+	/**
+	 * Gets the {@link BufferBuilder} the vertices should be added to.<br>
+	 * When {@link #isBatched() batched}, the buffer depends on the current texture, clipping area and zIndex, so it should be fetched
+	 * again after any of those change.
+	 *
+	 * @return the buffer
+	 */
 	public BufferBuilder getBuffer()
 	{
-		return BUFFER;
+		if (!isBatched())
+			return BUFFER;
+
+		ClipArea area = clipAreas.isEmpty() ? IClipable.NOCLIP : clipAreas.peek();
+		int zIndex = currentComponent != null ? currentComponent.zIndex() : 0;
+		if (currentBatch == null || !currentBatch.matches(currentTexture, area, zIndex))
+			currentBatch = batch(currentTexture, area, zIndex);
+		return currentBatch.buffer;
 	}
 
 	/**
@@ -110,6 +163,16 @@ public class GuiRenderer
 		defaultGuiTexture = texture;
 	}
 
+	/**
+	 * Gets the {@link GuiTexture} currently bound.
+	 *
+	 * @return the current texture
+	 */
+	public GuiTexture getCurrentTexture()
+	{
+		return currentTexture;
+	}
+
 	/**
 	 * Sets the scale factor to use for this {@link GuiRenderer}.
 	 *
@@ -165,6 +228,7 @@ public class GuiRenderer
 	{
 		this.partialTick = partialTick;
 		currentDrawCount = 0;
+		frameStart = System.nanoTime();
 
 		currentTexture = null;
 		bindDefaultTexture();
@@ -198,6 +262,7 @@ public class GuiRenderer
 		GlStateManager.enableDepth();
 
 		lastDrawCount = currentDrawCount;
+		lastFrameTime = System.nanoTime() - frameStart;
 	}
 
 	/**
@@ -205,7 +270,21 @@ public class GuiRenderer
 	 */
 	public boolean isBatched()
 	{
-		return false;
+		return batched;
+	}
+
+	/**
+	 * Sets whether the GUI should be drawn in a batch.<br>
+	 * When batched, the vertices are grouped by texture, clipping area and zIndex, and only drawn at the end of the frame, or when
+	 * {@link #draw()} is called explicitly. Overlapping components sharing the same zIndex but using different textures may then be
+	 * drawn in a different order.<br>
+	 * Should not be changed while a frame is being drawn.
+	 *
+	 * @param batched whether to batch the rendering
+	 */
+	public void setBatched(boolean batched)
+	{
+		this.batched = batched;
 	}
 
 	/**
@@ -253,11 +332,18 @@ public class GuiRenderer
 	}
 
 	/**
-	 * Triggers a draw.
+	 * Triggers a draw.<br>
+	 * When {@link #isBatched() batched}, draws all the batches filled so far.
 	 */
 	public void draw()
 	{
-		if (!isBatched() && isDrawing())
+		if (isBatched())
+		{
+			drawBatches();
+			return;
+		}
+
+		if (isDrawing())
 		{
 			Tessellator.getInstance()
 					   .draw();
@@ -288,10 +374,15 @@ public class GuiRenderer
 		if (texture == currentTexture || texture == null)
 			return;
 
+		//texture will be bound when the batch is drawn
+		if (isBatched())
+		{
+			currentTexture = texture;
+			return;
+		}
+
 		next();
-		Minecraft.getMinecraft()
-				 .getTextureManager()
-				 .bindTexture(texture.getResourceLocation());
+		texture.bind();
 		//System.out.println(currentComponent + " // Bound " + texture.getResourceLocation());
 
 		currentTexture = texture;
@@ -307,9 +398,7 @@ public class GuiRenderer
 
 	public void forceRebind()
 	{
-		Minecraft.getMinecraft()
-				 .getTextureManager()
-				 .bindTexture(currentTexture.getResourceLocation());
+		currentTexture.bind();
 	}
 
 	/**
@@ -454,8 +543,7 @@ public class GuiRenderer
 		if (!Strings.isEmpty(formatStr))
 			label = formatStr + label;
 
-		Tessellator.getInstance()
-				   .draw();
+		draw();
 
 		//RenderHelper.disableStandardItemLighting();
 		RenderHelper.enableGUIStandardItemLighting();
@@ -468,8 +556,12 @@ public class GuiRenderer
 		//GlStateManager.enableBlend(); //Forge commented blend reenabling
 
 		itemRenderer.zLevel = z;
+		GuiTexture texture = currentTexture;
 		currentTexture = null;
-		bindDefaultTexture();
+		if (isBatched())
+			bindTexture(texture);
+		else
+			bindDefaultTexture();
 		startDrawing();
 	}
 
@@ -507,16 +599,17 @@ public class GuiRenderer
 		if (area.noClip())
 			return;
 
+		//scissor will be set when the batch is drawn
+		if (isBatched())
+		{
+			clipAreas.push(area);
+			return;
+		}
+
 		next();
 		GL11.glPushAttrib(GL11.GL_SCISSOR_BIT);
 		GL11.glEnable(GL11.GL_SCISSOR_TEST);
-
-		int f = ignoreScale ? 1 : scaleFactor;
-		int x = area.x * f;
-		int y = Minecraft.getMinecraft().displayHeight - (area.y + area.height()) * f;
-		int w = area.width() * f;
-		int h = area.height() * f;
-		GL11.glScissor(x, y, w, h);
+		scissor(area);
 	}
 
 	/**
@@ -529,8 +622,339 @@ public class GuiRenderer
 		if (area.noClip())
 			return;
 
+		if (isBatched())
+		{
+			clipAreas.poll();
+			return;
+		}
+
 		next();
 		GL11.glDisable(GL11.GL_SCISSOR_TEST);
 		GL11.glPopAttrib();
 	}
+
+	//#region Display lists
+
+	/**
+	 * Checks whether a display list is currently being recorded.
+	 *
+	 * @return true if recording
+	 */
+	public boolean isRecording()
+	{
+		return recordingList != 0;
+	}
+
+	/**
+	 * Starts recording the rendering into the display list.<br>
+	 * Pending vertices are drawn first so they are not part of the recording.
+	 *
+	 * @param displayList the display list
+	 */
+	public void startRecording(int displayList)
+	{
+		draw();
+		//make sure the textures bound during the recording are part of it
+		resetTexture();
+		GL11.glNewList(displayList, GL11.GL_COMPILE_AND_EXECUTE);
+		recordingList = displayList;
+		startDrawing();
+	}
+
+	/**
+	 * Ends the recording started with {@link #startRecording(int)}.
+	 */
+	public void endRecording()
+	{
+		draw();
+		GL11.glEndList();
+		recordingList = 0;
+		startDrawing();
+	}
+
+	/**
+	 * Replays a display list previously recorded.
+	 *
+	 * @param displayList the display list
+	 */
+	public void callList(int displayList)
+	{
+		draw();
+		GL11.glCallList(displayList);
+		currentDrawCount++;
+		//texture bound by the display list is unknown to the GlStateManager
+		resetTexture();
+		startDrawing();
+	}
+
+	/**
+	 * Unbinds the current texture, bypassing the {@link GlStateManager} cache, so that the next {@link #bindTexture(GuiTexture)}
+	 * call actually binds it.
+	 */
+	private void resetTexture()
+	{
+		GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
+		GlStateManager.bindTexture(0);
+		currentTexture = null;
+	}
+
+	/**
+	 * Registers a {@link RenderCache} so its display list gets deleted with {@link #deleteRenderCaches()}.
+	 *
+	 * @param cache the cache
+	 */
+	public void registerRenderCache(RenderCache cache)
+	{
+		renderCaches.add(cache);
+	}
+
+	/**
+	 * Registers a {@link FramebufferCache} so its framebuffer gets deleted with {@link #deleteRenderCaches()}.
+	 *
+	 * @param cache the cache
+	 */
+	public void registerFramebufferCache(FramebufferCache cache)
+	{
+		framebufferCaches.add(cache);
+	}
+
+	/**
+	 * Deletes the display lists and framebuffers of all the {@link RenderCache RenderCaches} and {@link FramebufferCache
+	 * FramebufferCaches} used with this {@link GuiRenderer}.<br>
+	 * They will be rendered again the next time they are used.
+	 */
+	public void deleteRenderCaches()
+	{
+		renderCaches.forEach(RenderCache::delete);
+		renderCaches.clear();
+		framebufferCaches.forEach(FramebufferCache::delete);
+		framebufferCaches.clear();
+	}
+	//#end Display lists
+
+	//#region Offscreen
+
+	/**
+	 * Checks whether the rendering is currently done into an offscreen framebuffer.
+	 *
+	 * @return true if rendering offscreen
+	 */
+	public boolean isOffscreen()
+	{
+		return offscreen != null;
+	}
+
+	/**
+	 * Starts rendering into the framebuffer, which matches the area on screen.<br>
+	 * The framebuffer is cleared, and clipping is offset so that clip areas keep working.
+	 *
+	 * @param framebuffer the framebuffer
+	 * @param area the area
+	 */
+	public void startOffscreen(Framebuffer framebuffer, ClipArea area)
+	{
+		draw();
+
+		Minecraft mc = Minecraft.getMinecraft();
+		int f = ignoreScale ? 1 : scaleFactor;
+		offscreenX = area.x * f;
+		offscreenY = mc.displayHeight - area.Y * f;
+		offscreen = framebuffer;
+
+		framebuffer.bindFramebuffer(false);
+		//keep the screen projection, but move the area to the framebuffer origin
+		GlStateManager.viewport(-offscreenX, -offscreenY, mc.displayWidth, mc.displayHeight);
+		GL11.glPushAttrib(GL11.GL_SCISSOR_BIT);
+		GL11.glDisable(GL11.GL_SCISSOR_TEST);
+		GlStateManager.clearColor(0, 0, 0, 0);
+		GlStateManager.clear(GL11.GL_COLOR_BUFFER_BIT | GL11.GL_DEPTH_BUFFER_BIT);
+		//accumulate alpha, the framebuffer content ends up premultiplied
+		GlStateManager.tryBlendFuncSeparate(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA, GL11.GL_ONE, GL11.GL_ONE_MINUS_SRC_ALPHA);
+
+		startDrawing();
+	}
+
+	/**
+	 * Ends the rendering started with {@link #startOffscreen(Framebuffer, ClipArea)} and binds back the screen framebuffer.
+	 */
+	public void endOffscreen()
+	{
+		draw();
+
+		GL11.glPopAttrib();
+		offscreen = null;
+		offscreenX = 0;
+		offscreenY = 0;
+		Minecraft.getMinecraft()
+				 .getFramebuffer()
+				 .bindFramebuffer(true);
+		enableBlending();
+
+		startDrawing();
+	}
+
+	/**
+	 * Draws the content of the framebuffer as a single quad over the area.
+	 *
+	 * @param framebuffer the framebuffer
+	 * @param area the area
+	 * @param zIndex the z index
+	 */
+	public void drawFramebuffer(Framebuffer framebuffer, ClipArea area, int zIndex)
+	{
+		draw();
+
+		//batches disable the scissor once drawn
+		boolean clip = isBatched() && !clipAreas.isEmpty();
+		if (clip)
+		{
+			GL11.glEnable(GL11.GL_SCISSOR_TEST);
+			scissor(clipAreas.peek());
+		}
+
+		framebuffer.bindFramebufferTexture();
+		currentTexture = null;
+		//framebuffer content is premultiplied
+		GlStateManager.blendFunc(GL11.GL_ONE, GL11.GL_ONE_MINUS_SRC_ALPHA);
+
+		float u = (float) framebuffer.framebufferWidth / framebuffer.framebufferTextureWidth;
+		float v = (float) framebuffer.framebufferHeight / framebuffer.framebufferTextureHeight;
+		BUFFER.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_TEX_COLOR);
+		BUFFER.pos(area.x, area.y, zIndex)
+			  .tex(0, v)
+			  .color(255, 255, 255, 255)
+			  .endVertex();
+		BUFFER.pos(area.x, area.Y, zIndex)
+			  .tex(0, 0)
+			  .color(255, 255, 255, 255)
+			  .endVertex();
+		BUFFER.pos(area.X, area.Y, zIndex)
+			  .tex(u, 0)
+			  .color(255, 255, 255, 255)
+			  .endVertex();
+		BUFFER.pos(area.X, area.y, zIndex)
+			  .tex(u, v)
+			  .color(255, 255, 255, 255)
+			  .endVertex();
+		Tessellator.getInstance()
+				   .draw();
+		currentDrawCount++;
+
+		if (clip)
+			GL11.glDisable(GL11.GL_SCISSOR_TEST);
+		enableBlending();
+		startDrawing();
+	}
+	//#end Offscreen
+
+	/**
+	 * Sets the GL scissor box to match the area.
+	 *
+	 * @param area the area
+	 */
+	private void scissor(ClipArea area)
+	{
+		int f = ignoreScale ? 1 : scaleFactor;
+		int x = area.x * f - offscreenX;
+		int y = Minecraft.getMinecraft().displayHeight - (area.y + area.height()) * f - offscreenY;
+		int w = area.width() * f;
+		int h = area.height() * f;
+		GL11.glScissor(x, y, w, h);
+	}
+
+	//#region Batching
+
+	/**
+	 * Gets the {@link Batch} for the specified texture, area and zIndex, reusing a pooled one if needed.
+	 *
+	 * @param texture the texture
+	 * @param area the area
+	 * @param zIndex the z index
+	 * @return the batch
+	 */
+	private Batch batch(GuiTexture texture, ClipArea area, int zIndex)
+	{
+		for (Batch batch : batches)
+		{
+			if (batch.matches(texture, area, zIndex))
+				return batch;
+		}
+
+		Batch batch = batchPool.isEmpty() ? new Batch() : batchPool.remove(batchPool.size() - 1);
+		batch.begin(texture, area, zIndex);
+		batches.add(batch);
+		return batch;
+	}
+
+	/**
+	 * Draws all the batches filled since last draw, ordered by zIndex, then in the order they were first used.
+	 */
+	private void drawBatches()
+	{
+		currentBatch = null;
+		if (batches.isEmpty())
+			return;
+
+		//sort is stable, so batches with the same zIndex keep their order
+		batches.sort(Comparator.comparingInt(b -> b.zIndex));
+		for (Batch batch : batches)
+		{
+			batch.buffer.finishDrawing();
+			if (batch.buffer.getVertexCount() > 0)
+			{
+				if (batch.texture != null)
+					batch.texture.bind();
+				if (batch.area.noClip())
+					GL11.glDisable(GL11.GL_SCISSOR_TEST);
+				else
+				{
+					GL11.glEnable(GL11.GL_SCISSOR_TEST);
+					scissor(batch.area);
+				}
+
+				uploader.draw(batch.buffer);
+				currentDrawCount++;
+			}
+			else
+				batch.buffer.reset();
+		}
+		GL11.glDisable(GL11.GL_SCISSOR_TEST);
+
+		batchPool.addAll(batches);
+		batches.clear();
+	}
+
+	/**
+	 * Group of vertices sharing the same texture, clipping area and zIndex, drawn together.
+	 */
+	private static class Batch
+	{
+		private final BufferBuilder buffer = new BufferBuilder(0x4000);
+		private GuiTexture texture;
+		private ClipArea area;
+		private int zIndex;
+
+		private void begin(GuiTexture texture, ClipArea area, int zIndex)
+		{
+			this.texture = texture;
+			this.area = area;
+			this.zIndex = zIndex;
+			buffer.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_TEX_COLOR);
+		}
+
+		private boolean matches(GuiTexture texture, ClipArea area, int zIndex)
+		{
+			return this.texture == texture && this.zIndex == zIndex && sameArea(this.area, area);
+		}
+
+		private static boolean sameArea(ClipArea a1, ClipArea a2)
+		{
+			if (a1 == a2)
+				return true;
+			if (a1.noClip() || a2.noClip())
+				return false;
+			return a1.x == a2.x && a1.y == a2.y && a1.X == a2.X && a1.Y == a2.Y;
+		}
+	}
+	//#end Batching
 }
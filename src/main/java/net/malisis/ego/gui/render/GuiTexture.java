@@ -182,6 +182,16 @@ public class GuiTexture implements ISize
 		return resourceLocation;
 	}
 
+	/**
+	 * Binds this {@link GuiTexture} through the {@link TextureManager}.
+	 */
+	public void bind()
+	{
+		Minecraft.getMinecraft()
+				 .getTextureManager()
+				 .bindTexture(resourceLocation);
+	}
+
 	/**
 	 * Deletes this texture from the {@link TextureManager}.
 	 */
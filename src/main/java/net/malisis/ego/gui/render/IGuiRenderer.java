@@ -33,19 +33,64 @@ public interface IGuiRenderer
 {
 	public void render(GuiRenderer renderer);
 
+	/**
+	 * Checks whether the values this renderer gets from suppliers (icon, color, font options...) changed since the last call.<br>
+	 * Used to rebuild cached renderings only when needed. Renderers that can't tell return false, and
+	 * {@link net.malisis.ego.gui.component.UIComponent#invalidateRender()} should be called when they change.
+	 *
+	 * @return true, if the rendering changed
+	 */
+	public default boolean pollChanges()
+	{
+		return false;
+	}
+
 	public default IGuiRenderer and(IGuiRenderer other)
 	{
-		return other == null ? this : r -> {
-			render(r);
-			other.render(r);
+		if (other == null)
+			return this;
+
+		IGuiRenderer first = this;
+		return new IGuiRenderer()
+		{
+			@Override
+			public void render(GuiRenderer renderer)
+			{
+				first.render(renderer);
+				other.render(renderer);
+			}
+
+			@Override
+			public boolean pollChanges()
+			{
+				//both need to be polled to store their current state
+				return first.pollChanges() | other.pollChanges();
+			}
 		};
 	}
 
 	public default IGuiRenderer when(BooleanSupplier predicate)
 	{
-		return r -> {
-			if (predicate.getAsBoolean())
-				render(r);
+		IGuiRenderer renderer = this;
+		return new IGuiRenderer()
+		{
+			private boolean last;
+
+			@Override
+			public void render(GuiRenderer r)
+			{
+				if (predicate.getAsBoolean())
+					renderer.render(r);
+			}
+
+			@Override
+			public boolean pollChanges()
+			{
+				boolean active = predicate.getAsBoolean();
+				boolean changed = active != last;
+				last = active;
+				return renderer.pollChanges() || changed;
+			}
 		};
 	}
 
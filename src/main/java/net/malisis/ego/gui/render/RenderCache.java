@@ -0,0 +1,192 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.ego.gui.render;
+
+import net.malisis.ego.gui.component.UIComponent;
+import net.malisis.ego.gui.element.IClipable;
+import net.malisis.ego.gui.element.IClipable.ClipArea;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.GLAllocation;
+
+/**
+ * Records the rendering of a {@link UIComponent} and its children into a display list, and replays it as long as nothing changed.<br>
+ * The recording is invalidated by {@link UIComponent#invalidateRender()}, when the component moves, is resized, or its clipping area
+ * changes, or when the renderers of the component or its children report a change before replaying.<br>
+ * The component is only recorded once it was rendered unchanged for a frame, so that components changing every frame don't get
+ * recorded needlessly.
+ *
+ * @author Ordinastie
+ */
+public class RenderCache
+{
+	/** Component rendered by this {@link RenderCache}. */
+	private final UIComponent component;
+	/** Display list holding the recording. 0 if not allocated yet. */
+	private int displayList = 0;
+	/** Whether the display list holds a valid recording. */
+	private boolean recorded = false;
+	/** Whether the rendering changed since last frame. */
+	private boolean dirty = true;
+	/** Whether the display list is currently being recorded. */
+	private boolean recording = false;
+
+	/** State of the component when last rendered. */
+	private int x, y, width, height, zIndex, alpha, scaleFactor, displayHeight;
+	private ClipArea area = IClipable.NOCLIP;
+
+	public RenderCache(UIComponent component)
+	{
+		this.component = component;
+	}
+
+	/**
+	 * Invalidates the recording, so that the component gets recorded again.
+	 */
+	public void invalidate()
+	{
+		dirty = true;
+		recorded = false;
+	}
+
+	/**
+	 * Checks whether the state of the component changed since last frame, and stores the new state.
+	 *
+	 * @param renderer the renderer
+	 * @return true if the state changed
+	 */
+	private boolean updateState(GuiRenderer renderer)
+	{
+		int x = component.screenPosition()
+						 .x();
+		int y = component.screenPosition()
+						 .y();
+		int width = component.size()
+							 .width();
+		int height = component.size()
+							  .height();
+		int zIndex = component.zIndex();
+		int alpha = component.getAlpha();
+		int scaleFactor = renderer.isIgnoreScale() ? 1 : renderer.getScaleFactor();
+		int displayHeight = Minecraft.getMinecraft().displayHeight;
+		ClipArea area = IClipable.intersected(component);
+
+		boolean changed = x != this.x || y != this.y || width != this.width || height != this.height || zIndex != this.zIndex
+				|| alpha != this.alpha || scaleFactor != this.scaleFactor || displayHeight != this.displayHeight || !sameArea(area,
+																												   this.area);
+
+		this.x = x;
+		this.y = y;
+		this.width = width;
+		this.height = height;
+		this.zIndex = zIndex;
+		this.alpha = alpha;
+		this.scaleFactor = scaleFactor;
+		this.displayHeight = displayHeight;
+		this.area = area;
+
+		return changed;
+	}
+
+	private boolean sameArea(ClipArea a1, ClipArea a2)
+	{
+		if (a1 == a2)
+			return true;
+		if (a1.noClip() || a2.noClip() || a1.fullClip() || a2.fullClip())
+			return false;
+		return a1.x == a2.x && a1.y == a2.y && a1.X == a2.X && a1.Y == a2.Y;
+	}
+
+	/**
+	 * Replays the recording if it is still valid.
+	 *
+	 * @param renderer the renderer
+	 * @return true if the recording was replayed, false if the component should be rendered normally
+	 */
+	public boolean render(GuiRenderer renderer)
+	{
+		if (updateState(renderer))
+			invalidate();
+		//values from suppliers are not evaluated when replaying
+		if (recorded && !dirty)
+			component.pollRenderChanges();
+
+		if (!recorded || dirty)
+			return false;
+
+		renderer.callList(displayList);
+		return true;
+	}
+
+	/**
+	 * Starts recording the component if it did not change since last frame.<br>
+	 * Must be followed by {@link #endRecording(GuiRenderer)} once the component is rendered.
+	 *
+	 * @param renderer the renderer
+	 */
+	public void startRecording(GuiRenderer renderer)
+	{
+		//changed since last frame, or nested in another recording, render normally
+		if (dirty || renderer.isRecording())
+		{
+			dirty = false;
+			return;
+		}
+
+		if (displayList == 0)
+		{
+			displayList = GLAllocation.generateDisplayLists(1);
+			renderer.registerRenderCache(this);
+		}
+		renderer.startRecording(displayList);
+		recording = true;
+	}
+
+	/**
+	 * Ends the recording started with {@link #startRecording(GuiRenderer)}.
+	 *
+	 * @param renderer the renderer
+	 */
+	public void endRecording(GuiRenderer renderer)
+	{
+		if (!recording)
+			return;
+
+		renderer.endRecording();
+		recording = false;
+		//invalidated while recording
+		recorded = !dirty;
+	}
+
+	/**
+	 * Deletes the display list used by this {@link RenderCache}.
+	 */
+	public void delete()
+	{
+		if (displayList != 0)
+			GLAllocation.deleteDisplayLists(displayList);
+		displayList = 0;
+		invalidate();
+	}
+}
@@ -42,7 +42,10 @@ import net.malisis.ego.gui.element.size.Sizes;
 import net.malisis.ego.gui.render.GuiIcon;
 import net.malisis.ego.gui.render.GuiRenderer;
 import net.malisis.ego.gui.theme.Theme;
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
 
+import java.nio.ByteOrder;
 import java.util.EnumMap;
 import java.util.function.Function;
 import java.util.function.IntSupplier;
@@ -56,7 +59,21 @@ import javax.annotation.Nonnull;
  */
 public class GuiShape implements IContent, IChild
 {
+	/** Whether the vertices are written directly as raw data in the buffer, instead of through {@link BufferBuilder#pos}. */
+	public static boolean DIRECT_WRITE = true;
+
 	public static final int CORNER_SIZE = 5;
+	/** Number of integers per vertex in the {@link DefaultVertexFormats#POSITION_TEX_COLOR} format. */
+	private static final int VERTEX_SIZE = DefaultVertexFormats.POSITION_TEX_COLOR.getIntegerSize();
+	private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+	/** Raw vertex data of the center face, reused for each shape without border. */
+	private static final int[] CENTER_DATA = new int[4 * VERTEX_SIZE];
+	/** Raw vertex data of the nine faces, reused for each shape with a border. */
+	private static final int[] FACES_DATA = new int[9 * 4 * VERTEX_SIZE];
+	/** Faces to draw, cached to avoid allocating while rendering. */
+	private static final FacePosition[] FACES = FacePosition.values();
+	private static final FacePosition[] CENTER = { FacePosition.CENTER };
+	private static final VertexPosition[] VERTICES = VertexPosition.values();
 
 	private final Object parent;
 	private final IPosition position;
@@ -69,6 +86,11 @@ public class GuiShape implements IContent, IChild
 	private final int border;
 	private final boolean fixed;
 
+	/** Icon at the last {@link #pollChanges()}. */
+	private GuiIcon lastIcon;
+	/** Hash of the icon coordinates, colors and alphas at the last {@link #pollChanges()}. */
+	private int lastHash;
+
 	private GuiShape(Object parent, Function<GuiShape, IPosition> position, IntSupplier zIndex, Function<GuiShape, ISize> size, ToIntBiFunction<FacePosition, VertexPosition> color, ToIntBiFunction<FacePosition, VertexPosition> alpha, Supplier<GuiIcon> icon, int border, boolean fixed)
 	{
 		this.parent = parent;
@@ -134,9 +156,8 @@ public class GuiShape implements IContent, IChild
 
 	public GuiIcon getIcon()
 	{
-		if (icon == null || icon.get() == null)
-			return GuiIcon.NONE;
-		return icon.get();
+		GuiIcon icon = this.icon != null ? this.icon.get() : null;
+		return icon != null ? icon : GuiIcon.NONE;
 	}
 
 	@Override
@@ -145,6 +166,34 @@ public class GuiShape implements IContent, IChild
 		render(renderer, screenPosition, size());
 	}
 
+	/**
+	 * Checks whether the icon, or the color and alpha of the drawn vertices changed since the last call.
+	 *
+	 * @return true, if changed
+	 */
+	@Override
+	public boolean pollChanges()
+	{
+		GuiIcon icon = getIcon();
+		int hash = Float.floatToIntBits(icon.u());
+		hash = 31 * hash + Float.floatToIntBits(icon.v());
+		hash = 31 * hash + Float.floatToIntBits(icon.U());
+		hash = 31 * hash + Float.floatToIntBits(icon.V());
+		for (FacePosition fp : border == 0 ? CENTER : FACES)
+		{
+			for (VertexPosition vp : VERTICES)
+			{
+				hash = 31 * hash + getColor(fp, vp);
+				hash = 31 * hash + getAlpha(fp, vp);
+			}
+		}
+
+		boolean changed = icon != lastIcon || hash != lastHash;
+		lastIcon = icon;
+		lastHash = hash;
+		return changed;
+	}
+
 	public void renderFor(GuiRenderer renderer, UIComponent t)
 	{
 		render(renderer, t.screenPosition(), t.size());
@@ -152,66 +201,141 @@ public class GuiShape implements IContent, IChild
 
 	public void render(GuiRenderer renderer, IPosition position, ISize size)
 	{
-		getIcon().bind(renderer);
-		for (FacePosition fp : FacePosition.VALUES)
-			for (VertexPosition vp : VertexPosition.VALUES)
-				addVertexData(fp, vp, position, size);
+		GuiIcon icon = getIcon();
+		if (icon.isMissing())
+			return;
+		icon.bind(renderer);
+		BufferBuilder buffer = renderer.getBuffer();
+		//raw data can only be written in the format the renderer uses
+		int[] data = null;
+		if (DIRECT_WRITE && buffer.getVertexFormat() == DefaultVertexFormats.POSITION_TEX_COLOR)
+			data = border == 0 ? CENTER_DATA : FACES_DATA;
+
+		int x = position.x();
+		int y = position.y();
+		int z = getZIndex();
+		int width = size.width();
+		int height = size.height();
+
+		//no border, only the center face is drawn, stretched to the full size
+		if (border == 0)
+		{
+			addFace(buffer, data, 0, FacePosition.CENTER, x, y, x + width, y + height, z, icon.u(), icon.v(), icon.U(), icon.V());
+			if (data != null)
+				buffer.addVertexData(data);
+			return;
+		}
+
+		width -= 2 * border;
+		height -= 2 * border;
+		int index = 0;
+		for (FacePosition fp : FACES)
+		{
+			int fx = fp.x(width, border);
+			int fy = fp.y(height, border);
+			int fX = fx + fp.width(width, border);
+			int fY = fy + fp.height(height, border);
+
+			float u, v, U, V;
+			if (border > 0)
+			{
+				u = interpolatedU(fp.x(), icon);
+				v = interpolatedV(fp.y(), icon);
+				U = interpolatedU(fp.x() + 1, icon);
+				V = interpolatedV(fp.y() + 1, icon);
+			}
+			else
+			{
+				u = icon.interpolatedU(fx);
+				v = icon.interpolatedV(fy);
+				U = icon.interpolatedU(fX);
+				V = icon.interpolatedV(fY);
+			}
+
+			addFace(buffer, data, index, fp, x + fx, y + fy, x + fX, y + fY, z, u, v, U, V);
+			index += 4 * VERTEX_SIZE;
+		}
+		if (data != null)
+			buffer.addVertexData(data);
 	}
 
 	/**
-	 * Gets the vertex data for this vertex.
+	 * Adds the four vertices of a face to the buffer, or to the raw data if not null.
 	 *
-	 * @param fp the fp
-	 * @param vp the position
+	 * @param buffer the buffer
+	 * @param data the raw vertex data, or null to add the vertices to the buffer
+	 * @param index the index of the face in the data
+	 * @param fp the face position
+	 * @param x the left coordinate
+	 * @param y the top coordinate
+	 * @param X the right coordinate
+	 * @param Y the bottom coordinate
+	 * @param z the z index
 	 */
-	public void addVertexData(FacePosition fp, VertexPosition vp, IPosition position, ISize size)
+	private void addFace(BufferBuilder buffer, int[] data, int index, FacePosition fp, int x, int y, int X, int Y, int z, float u, float v,
+			float U, float V)
 	{
-		GuiIcon icon = getIcon();
-
-		float x, y, u, v;
-		if (border == 0)
+		if (data != null)
 		{
-			if (fp != FacePosition.CENTER)
-				return;
-
-			x = vp.x(size.width());
-			y = vp.y(size.height());
-			u = icon.interpolatedU(vp.x());
-			v = icon.interpolatedV(vp.y());
-			//debug show full texture
-			//			u = vp.x();
-			//			v = vp.y();
-
+			putVertex(data, index, fp, VertexPosition.TOPLEFT, x, y, z, u, v);
+			putVertex(data, index + VERTEX_SIZE, fp, VertexPosition.BOTTOMLEFT, x, Y, z, u, V);
+			putVertex(data, index + 2 * VERTEX_SIZE, fp, VertexPosition.BOTTOMRIGHT, X, Y, z, U, V);
+			putVertex(data, index + 3 * VERTEX_SIZE, fp, VertexPosition.TOPRIGHT, X, y, z, U, v);
+			return;
 		}
-		else
-		{
-			int width = size.width() - 2 * border;
-			int height = size.height() - 2 * border;
 
-			x = fp.x(width, border) + vp.x(fp.width(width, border));
-			y = fp.y(height, border) + vp.y(fp.height(height, border));
-
-			u = border > 0 ? interpolatedU(fp, vp, icon) : icon.interpolatedU(x);
-			v = border > 0 ? interpolatedV(fp, vp, icon) : icon.interpolatedV(y);
-		}
+		addVertex(buffer, fp, VertexPosition.TOPLEFT, x, y, z, u, v);
+		addVertex(buffer, fp, VertexPosition.BOTTOMLEFT, x, Y, z, u, V);
+		addVertex(buffer, fp, VertexPosition.BOTTOMRIGHT, X, Y, z, U, V);
+		addVertex(buffer, fp, VertexPosition.TOPRIGHT, X, y, z, U, v);
+	}
 
+	/**
+	 * Puts a single vertex in the raw data, laid out as {@link DefaultVertexFormats#POSITION_TEX_COLOR}.<br>
+	 * The color bytes are in native order, as {@link BufferBuilder#color(int, int, int, int)} writes them.
+	 *
+	 * @param data the data
+	 * @param index the index of the vertex in the data
+	 * @param fp the face position
+	 * @param vp the vertex position
+	 */
+	private void putVertex(int[] data, int index, FacePosition fp, VertexPosition vp, int x, int y, int z, float u, float v)
+	{
 		int color = getColor(fp, vp);
 		int r = (color >> 16) & 0xFF;
 		int g = (color >> 8) & 0xFF;
-		int b = (color) & 0xFF;
-		color = (b << 16) + (g << 8) + r + (getAlpha(fp, vp) << 24);
-
-		GuiRenderer.BUFFER.addVertexData(new int[] { Float.floatToRawIntBits(position.x() + x),
-													 Float.floatToRawIntBits(position.y() + y),
-													 Float.floatToRawIntBits(getZIndex()),
-													 Float.floatToRawIntBits(u),
-													 Float.floatToRawIntBits(v),
-													 color });
+		int b = color & 0xFF;
+		int a = getAlpha(fp, vp) & 0xFF;
+		data[index] = Float.floatToRawIntBits(x);
+		data[index + 1] = Float.floatToRawIntBits(y);
+		data[index + 2] = Float.floatToRawIntBits(z);
+		data[index + 3] = Float.floatToRawIntBits(u);
+		data[index + 4] = Float.floatToRawIntBits(v);
+		data[index + 5] = LITTLE_ENDIAN ? a << 24 | b << 16 | g << 8 | r : r << 24 | g << 16 | b << 8 | a;
+	}
+
+	/**
+	 * Adds a single vertex to the buffer through {@link BufferBuilder#pos(double, double, double)}.
+	 *
+	 * @param buffer the buffer
+	 * @param fp the face position
+	 * @param vp the vertex position
+	 */
+	private void addVertex(BufferBuilder buffer, FacePosition fp, VertexPosition vp, int x, int y, int z, float u, float v)
+	{
+		int color = getColor(fp, vp);
+		buffer.pos(x, y, z)
+			  .tex(u, v)
+			  .color((color >> 16) & 0xFF, (color >> 8) & 0xFF, color & 0xFF, getAlpha(fp, vp))
+			  .endVertex();
 	}
 
-	private float interpolatedU(FacePosition fp, VertexPosition vp, GuiIcon icon)
+	/**
+	 * Gets the U coordinate for the vertical line of vertices at the index (0 to 3, left to right).
+	 */
+	private float interpolatedU(int index, GuiIcon icon)
 	{
-		switch (fp.x() + vp.x())
+		switch (index)
 		{
 			case 1:
 				return icon.pixelToU(border);
@@ -223,9 +347,12 @@ public class GuiShape implements IContent, IChild
 		return icon.interpolatedU(0);
 	}
 
-	private float interpolatedV(FacePosition fp, VertexPosition vp, GuiIcon icon)
+	/**
+	 * Gets the V coordinate for the horizontal line of vertices at the index (0 to 3, top to bottom).
+	 */
+	private float interpolatedV(int index, GuiIcon icon)
 	{
-		switch (fp.y() + vp.y())
+		switch (index)
 		{
 			case 1:
 				return icon.pixelToV(border);
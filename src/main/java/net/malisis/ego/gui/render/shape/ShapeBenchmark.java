@@ -0,0 +1,137 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.ego.gui.render.shape;
+
+import net.malisis.ego.EGO;
+import net.malisis.ego.gui.element.position.Position;
+import net.malisis.ego.gui.element.position.Position.IPosition;
+import net.malisis.ego.gui.element.size.Size;
+import net.malisis.ego.gui.element.size.Size.ISize;
+import net.malisis.ego.gui.render.GuiRenderer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures the time and the memory allocated to render {@link GuiShape GuiShapes}, with and without {@link GuiShape#DIRECT_WRITE}.<br>
+ * The allocations are read from the thread allocation counter of the JVM, when available. Run with <code>/ego benchmark shape</code>.
+ *
+ * @author Ordinastie
+ */
+public class ShapeBenchmark
+{
+	/** Number of shapes rendered per frame. */
+	private static final int SHAPES = 1000;
+	/** Number of frames rendered for warm up. */
+	private static final int WARMUP = 100;
+	/** Number of frames measured. */
+	private static final int FRAMES = 200;
+
+	private static final IPosition POSITION = Position.of(10, 10);
+	private static final ISize SIZE = Size.of(100, 50);
+
+	private ShapeBenchmark()
+	{
+	}
+
+	/**
+	 * Runs the benchmark and reports the results in the log and the chat.
+	 */
+	public static void run()
+	{
+		GuiShape bordered = GuiShape.builder()
+									.icon("panel")
+									.border(3)
+									.build();
+		GuiShape plain = GuiShape.builder()
+								 .icon("panel")
+								 .build();
+
+		GuiRenderer renderer = new GuiRenderer();
+		boolean direct = GuiShape.DIRECT_WRITE;
+		try
+		{
+			for (boolean b : new boolean[] { true, false })
+			{
+				GuiShape.DIRECT_WRITE = b;
+				measure(renderer, (b ? "direct" : "pos/tex/color") + ", border", bordered);
+				measure(renderer, (b ? "direct" : "pos/tex/color") + ", no border", plain);
+			}
+		}
+		finally
+		{
+			GuiShape.DIRECT_WRITE = direct;
+		}
+	}
+
+	private static void measure(GuiRenderer renderer, String name, GuiShape shape)
+	{
+		for (int i = 0; i < WARMUP; i++)
+			render(renderer, shape);
+
+		long bytes = allocatedBytes();
+		long start = System.nanoTime();
+		for (int i = 0; i < FRAMES; i++)
+			render(renderer, shape);
+		long time = System.nanoTime() - start;
+		bytes = allocatedBytes() - bytes;
+
+		report(String.format("%s : %.1fns, %s per shape",
+							 name,
+							 (double) time / FRAMES / SHAPES,
+							 bytes < 0 ? "n/a bytes" : String.format("%.2f bytes", (double) bytes / FRAMES / SHAPES)));
+	}
+
+	private static void render(GuiRenderer renderer, GuiShape shape)
+	{
+		renderer.setup(0);
+		for (int i = 0; i < SHAPES; i++)
+			shape.render(renderer, POSITION, SIZE);
+		renderer.clean();
+	}
+
+	/**
+	 * Gets the number of bytes allocated by the current thread, or a negative value if the JVM does not support it.
+	 *
+	 * @return the allocated bytes
+	 */
+	private static long allocatedBytes()
+	{
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (!(bean instanceof com.sun.management.ThreadMXBean))
+			return -1;
+		com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+		if (!sunBean.isThreadAllocatedMemorySupported() || !sunBean.isThreadAllocatedMemoryEnabled())
+			return -1;
+		return sunBean.getThreadAllocatedBytes(Thread.currentThread()
+													 .getId());
+	}
+
+	private static void report(String msg)
+	{
+		EGO.log.info(msg);
+		EGO.message(msg);
+	}
+}
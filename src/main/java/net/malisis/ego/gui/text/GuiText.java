@@ -32,13 +32,16 @@ import net.malisis.ego.cacheddata.CachedFontOptions;
 import net.malisis.ego.cacheddata.FixedData;
 import net.malisis.ego.cacheddata.ICachedData;
 import net.malisis.ego.cacheddata.IntCachedData;
+import net.malisis.ego.cacheddata.ObservableData;
 import net.malisis.ego.font.FontOptions;
+import net.malisis.ego.font.GlyphRun;
 import net.malisis.ego.font.StringWalker;
 import net.malisis.ego.gui.EGOGui;
 import net.malisis.ego.gui.component.UIComponent;
 import net.malisis.ego.gui.component.content.IContent;
 import net.malisis.ego.gui.element.IClipable;
 import net.malisis.ego.gui.element.IClipable.ClipArea;
+import net.malisis.ego.gui.element.LayoutNode;
 import net.malisis.ego.gui.element.position.IPositionBuilder;
 import net.malisis.ego.gui.element.position.Position;
 import net.malisis.ego.gui.element.position.Position.IPosition;
@@ -50,19 +53,15 @@ import net.malisis.ego.gui.render.GuiRenderer;
 import net.minecraft.client.resources.I18n;
 import net.minecraft.util.math.MathHelper;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.logging.log4j.util.Strings;
 
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.Optional;
 import java.util.function.Function;
 import java.util.function.IntSupplier;
 import java.util.function.Supplier;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * The Class GuiString represents a String to be used and displayed in a GUI.<br>
@@ -76,13 +75,14 @@ public class GuiText implements IContent
 {
 	public static boolean CACHED = true;
 
-	/** Pattern for named parameters. */
-	private static final Pattern pattern = Pattern.compile("\\{(?<key>.*?)}");
-
 	/** Base text to be translated and parameterized. */
 	private CachedData<String> base;
-	/** Lines composing the text. */
-	private final List<LineInfo> lines = Lists.newArrayList();
+	/** Lines built with the {@link #defaultOptions}. */
+	private final LineState defaultLines = new LineState();
+	/** Lines built with the scaled options, when the text is scaled down to fit the {@link #fitSize}. */
+	private final LineState fitLines = new LineState();
+	/** Lines composing the text, built with the {@link #fitOptions}. */
+	private LineState currentLines = defaultLines;
 	/** Parameters. */
 	private final Map<String, ICachedData<?>> parameters;
 
@@ -90,9 +90,19 @@ public class GuiText implements IContent
 	private FontOptions defaultOptions;
 	/** The current font options. Only different from defaultOptions if fit size is set and require changing the text scale to fit */
 	private FontOptions fitOptions;
+	/** Options last scaled to fit, kept so the {@link #fitLines} can be built incrementally. */
+	private FontOptions scaledOptions;
+	/** Options the {@link #scaledOptions} were scaled from. */
+	private FontOptions scaledFrom;
 
+	/** Compiled {@link #base} text. */
+	private TextTemplate template;
 	/** Translated text with resolved parameters. */
 	private String cache = "";
+	/** Index in the {@link #cache} from which text was {@link #append(String) appended} since the lines were built, -1 if none. */
+	private int appendedAt = -1;
+	/** Cache before the text was {@link #append(String) appended}. */
+	private String appendedFrom;
 
 	/** Whether the text should be translated. */
 	private final boolean translated;
@@ -116,6 +126,20 @@ public class GuiText implements IContent
 	//private boolean buildCache = true;
 
 	private ISized parent;
+	/** Glyph quads of this {@link GuiText}, built by the font when the lines change. */
+	private final GlyphRun glyphRun = new GlyphRun();
+	/** Layout state of this {@link GuiText} (position and parent). */
+	private final LayoutNode layoutState = new LayoutNode();
+	/** Size state of this {@link GuiText}, polled each frame as the text and parameters can come from suppliers. */
+	private final LayoutNode sizeState = LayoutNode.polled(this::update);
+	/** Frame counter of the last {@link #update()}. */
+	private int updateCounter = -1;
+	/** Whether an {@link ObservableData} parameter notified a change since the last {@link #update()}. */
+	private volatile boolean parametersChanged = false;
+	/** Listener registered to the {@link ObservableData} parameters, held here as they only keep a weak reference to it. */
+	private final Runnable parameterListener = () -> parametersChanged = true;
+	/** Resolved font options at the last {@link #pollChanges()}. */
+	private FontOptions.Snapshot lastSnapshot;
 
 	private GuiText(Builder builder)
 	{
@@ -132,6 +156,7 @@ public class GuiText implements IContent
 		literal = builder.literal;
 		wrapSize = new IntCachedData(builder.wrapSize);
 		fitSize = new IntCachedData(builder.fitSize);
+		observeParameters(true);
 
 		//	update(true);
 	}
@@ -139,23 +164,28 @@ public class GuiText implements IContent
 	public void setParent(ISized parent)
 	{
 		this.parent = parent;
+		layoutState.invalidate();
 	}
 
 	@Override
 	public ISized getParent()
 	{
+		layoutState.track();
 		return parent;
 	}
 
 	public void setPosition(IPosition position)
 	{
 		this.position = position;
+		layoutState.invalidate();
+		invalidateRender();
 	}
 
 	@Nonnull
 	@Override
 	public IPosition position()
 	{
+		layoutState.track();
 		return position;
 	}
 
@@ -176,6 +206,8 @@ public class GuiText implements IContent
 	public ISize size()
 	{
 		update(); //make sure to update cache
+		//size depends on the text and its parameters, sizeState is invalidated when they change the lines
+		sizeState.track();
 		return size;
 	}
 
@@ -215,22 +247,66 @@ public class GuiText implements IContent
 	public void setText(Supplier<String> supplier)
 	{
 		base = new CachedData<>(checkNotNull(supplier));
+		invalidateUpdate();
+	}
+
+	/**
+	 * Appends text at the end of the current text of this {@link GuiText}.<br>
+	 * The text becomes fixed if it was set with a {@link Supplier}. Only the parameters of the appended text are resolved, and the
+	 * lines, size and glyphs are only built again from the last line, so this can be used for log-like texts that grow over time.<br>
+	 * When the text is translated, the whole text is resolved and translated again instead, as it is translated as a whole.
+	 *
+	 * @param text the text to append
+	 */
+	public void append(String text)
+	{
+		checkNotNull(text);
+		if (text.isEmpty())
+			return;
+		base.update();
+		String current = base.get();
+		String full = current + text;
+		base = new CachedData<>(() -> full);
+		invalidateUpdate();
+
+		//the cache must be up to date with the current text for the appended part to be resolved on its own
+		if (!CACHED || translated || template == null || parametersChanged || (appendedAt == -1 && cache != currentLines.text)
+				|| !template.isFor(current))
+			return;
+		String appended = template.extend(full, parameters, this::translate);
+		if (appended == null)
+			return;
+
+		base.update(); //consume the change, the cache is updated here
+		if (appendedAt == -1)
+		{
+			appendedAt = cache.length();
+			appendedFrom = cache;
+		}
+		cache += appended;
 	}
 
 	public void setParameters(Map<String, ICachedData<?>> params)
 	{
+		checkNotNull(params);
+		observeParameters(false);
 		parameters.clear();
-		parameters.putAll(checkNotNull(params));
+		parameters.putAll(params);
+		observeParameters(true);
+		parametersChanged = true;
+		invalidateUpdate();
 	}
 
 	public void setWrapSize(int size)
 	{
 		wrapSize = new IntCachedData(size);
+		invalidateUpdate();
 	}
 
 	public void setWrapSize(IntSupplier supplier)
 	{
 		wrapSize = new IntCachedData(checkNotNull(supplier));
+		invalidateUpdate();
 	}
 
 	/**
@@ -241,7 +317,7 @@ public class GuiText implements IContent
 	public List<LineInfo> lines()
 	{
 		update();
-		return lines;
+		return currentLines.lines;
 	}
 
 	public int length()
@@ -262,7 +338,7 @@ public class GuiText implements IContent
 	 */
 	public int lineCount()
 	{
-		return lines.size();
+		return currentLines.lines.size();
 	}
 
 	/**
@@ -313,20 +389,44 @@ public class GuiText implements IContent
 	public void setFontOptions(FontOptions fontOptions)
 	{
 		defaultOptions = checkNotNull(fontOptions);
+		invalidateUpdate();
+	}
+
+	/**
+	 * Forces the next call to {@link #update()} to check for changes, even if it was already updated during the current frame.
+	 */
+	private void invalidateUpdate()
+	{
+		updateCounter = -1;
+		sizeState.invalidate();
+		invalidateRender();
 	}
 
 	/**
-	 * Resolve parameter values to use in the text.
+	 * Registers or unregisters the listener to the {@link ObservableData} parameters.
 	 *
-	 * @param key the key
-	 * @return the string
+	 * @param observe whether to register the listener
 	 */
-	private String resolveParameter(String key)
+	private void observeParameters(boolean observe)
 	{
-		String str = Optional.ofNullable(parameters.get(key))
-							 .map(d -> Objects.toString(d.get()))
-							 .orElse(key);
-		return translate(str).replace("$", "\\$");
+		for (ICachedData<?> data : parameters.values())
+		{
+			if (!(data instanceof ObservableData))
+				continue;
+			if (observe)
+				((ObservableData<?>) data).addListener(parameterListener);
+			else
+				((ObservableData<?>) data).removeListener(parameterListener);
+		}
+	}
+
+	/**
+	 * Notifies the parent {@link UIComponent} that the rendering of this {@link GuiText} changed.
+	 */
+	private void invalidateRender()
+	{
+		if (parent instanceof UIComponent)
+			((UIComponent) parent).invalidateRender();
 	}
 
 	private String translate(String key)
@@ -335,13 +435,16 @@ public class GuiText implements IContent
 	}
 
 	/**
-	 * Checks whether any parameter has changed.
+	 * Updates the parameters and checks whether any of them has changed.<br>
+	 * {@link ObservableData} parameters also notify {@link #parametersChanged}, so that the text is updated as soon as they change.<br>
+	 * The {@link #template} relies on {@link ICachedData#hasChanged()} after this update to only resolve the changed parameters.
 	 *
 	 * @return true, if successful
 	 */
 	private boolean hasParametersChanged()
 	{
-		boolean changed = false;
+		boolean changed = parametersChanged;
+		parametersChanged = false;
 		for (ICachedData<?> data : parameters.values())
 		{
 			data.update();
@@ -352,10 +455,16 @@ public class GuiText implements IContent
 	}
 
 	/**
-	 * Update the cache and the lines if necessary.
+	 * Update the cache and the lines if necessary.<br>
+	 * Only checks for changes once per frame, unless a setter or an {@link ObservableData} parameter invalidated it.<br>
+	 * Notifies the parent {@link UIComponent} when the lines changed.
 	 */
-	private void update()
+	public void update()
 	{
+		if (CACHED && !parametersChanged && !EGOGui.needsUpdate(updateCounter))
+			return;
+		updateCounter = EGOGui.counter;
+
 		base.update();
 		wrapSize.update();
 		fitSize.update();
@@ -364,30 +473,81 @@ public class GuiText implements IContent
 		//check params first as they need to be updated
 		boolean buildCache = hasParametersChanged() || base.hasChanged();
 		//check fontOptions first, as last values need to be updated
-		boolean buildLines = cachedOptions.hasChanged() || buildCache || fitSize.hasChanged() || wrapSize.hasChanged();
+		boolean buildLines = cachedOptions.hasChanged() || buildCache || fitSize.hasChanged() || wrapSize.hasChanged() || appendedAt != -1;
 
 		if (buildCache || !CACHED)
 			generateCache();
 
 		if (buildLines || !CACHED)
 		{
-			buildLines(defaultOptions);
+			int w = size != null ? size.width() : -1;
+			int h = size != null ? size.height() : -1;
+			LineState previous = currentLines;
+			currentLines = defaultLines;
+			int line = buildLines(defaultLines, defaultOptions);
 			if (checkFitSize())
-				buildLines(fitOptions);
+			{
+				currentLines = fitLines;
+				line = buildLines(fitLines, fitOptions);
+			}
+			size = currentLines.size;
+			appendedAt = -1;
+			appendedFrom = null;
+			//glyphs depend on the font textures, and on the width for right aligned texts
+			glyphRun.invalidate(cachedOptions.hasChanged() || currentLines != previous || size.width() != w ? 0 : line);
+			if (size.width() != w || size.height() != h)
+				sizeState.invalidate();
+			invalidateRender();
 		}
 	}
 
-	private void updateSize(FontOptions options)
+	/**
+	 * Updates this {@link GuiText}, and checks whether the resolved {@link FontOptions} changed since the last call, for example when
+	 * a predicate applies a hover color.<br>
+	 * Changes of the lines already notify the parent through {@link #update()}.
+	 *
+	 * @return true, if the font options changed
+	 */
+	@Override
+	public boolean pollChanges()
 	{
+		update();
+		FontOptions.Snapshot snapshot = fitOptions != null ? fitOptions.snapshot() : null;
+		boolean changed = snapshot != lastSnapshot;
+		lastSnapshot = snapshot;
+		return changed;
+	}
+
+	/**
+	 * Updates the size of the lines and their position, from the first changed line.
+	 *
+	 * @param state the lines
+	 * @param options the options
+	 * @param from the first changed line
+	 */
+	private void updateSize(LineState state, FontOptions options, int from)
+	{
+		List<LineInfo> lines = state.lines;
 		int w = 0, h = 0;
-		for (LineInfo info : lines)
+		if (from > 0)
+		{
+			LineInfo previous = lines.get(from - 1);
+			w = previous.maxWidth;
+			h = previous.y + previous.height() + options.lineSpacing();
+		}
+		for (LineInfo info : lines.subList(from, lines.size()))
 		{
+			info.y = h;
 			w = Math.max(info.width(), w);
+			info.maxWidth = w;
 			h += info.height() + options.lineSpacing();
 		}
-		size = Size.of(w, h);
+		state.size = Size.of(w, h);
 
-		for (LineInfo info : lines)
+		//previous lines only need the new width if it changed
+		if (from > 0 && lines.get(0).spaceWidth != w)
+			from = 0;
+		for (LineInfo info : lines.subList(from, lines.size()))
 		{
 			info.spaceWidth = w;
 		}
@@ -399,47 +559,92 @@ public class GuiText implements IContent
 	 */
 	private void generateCache()
 	{
+		appendedAt = -1;
 		String str = base.get();
-		str = applyParameters(str);
-		cache = str;
+		if (template == null || !template.isFor(str))
+			template = TextTemplate.compile(str);
+		cache = template.apply(parameters, this::translate);
 	}
 
 	/**
-	 * Applies parameters to the text.
+	 * Splits the cache in multiple lines to fit in the {@link #wrapSize}.
+	 * Is called once with the default scale, and once again if fitSize requires new scale.<br>
+	 * Each {@link FontOptions} keeps its own lines, so that when the lines were last built with the same options, only the lines affected
+	 * by the change in the text are built again.
 	 *
-	 * @param str the str
-	 * @return the string
+	 * @param state the lines to build
+	 * @param fontOptions the font options
+	 * @return the index of the first line built again
 	 */
-	public String applyParameters(String str)
+	private int buildLines(LineState state, FontOptions fontOptions)
 	{
-		if (Strings.isEmpty(str))
-			return "";
-		Matcher matcher = pattern.matcher(str);
-		StringBuffer sb = new StringBuffer();
-		while (matcher.find())
+		List<LineInfo> lines = state.lines;
+		String str = cache;
+		//when text was only appended, the start of the cache is the text the lines were built from
+		boolean appended = appendedAt != -1 && state.text == appendedFrom;
+		int wrapWidth = getWrapSize();
+		int restart = lines.size();
+
+		if (!CACHED || lines.isEmpty() || fontOptions != state.options || wrapWidth != state.wrapSize)
 		{
-			matcher.appendReplacement(sb, resolveParameter(matcher.group("key")));
+			lines.clear();
+			breakLines(lines, str, fontOptions, wrapWidth, null, 0, 0);
+			restart = 0;
 		}
-		matcher.appendTail(sb);
-		str = sb.toString();
-		return translate(str);
+		else if (appended || !str.equals(state.text))
+		{
+			//find the changed part of the text
+			String old = state.text;
+			int prefix = 0;
+			int suffix = 0;
+			if (appended)
+				prefix = appendedAt;
+			else
+			{
+				int max = Math.min(old.length(), str.length());
+				while (prefix < max && old.charAt(prefix) == str.charAt(prefix))
+					prefix++;
+				while (suffix < max - prefix && old.charAt(old.length() - 1 - suffix) == str.charAt(str.length() - 1 - suffix))
+					suffix++;
+			}
+
+			//first line whose walk reached the change, the last line always depends on the end of the text
+			restart = lines.size() - 1;
+			while (restart > 0 && lines.get(restart - 1).end > prefix)
+				restart--;
+
+			List<LineInfo> tail = Lists.newArrayList(lines.subList(restart, lines.size()));
+			lines.subList(restart, lines.size())
+				 .clear();
+			breakLines(lines, str, fontOptions, wrapWidth, tail, str.length() - suffix, str.length() - old.length());
+		}
+
+		state.text = str;
+		state.options = fontOptions;
+		state.wrapSize = wrapWidth;
+		updateSize(state, fontOptions, Math.min(restart, lines.size()));
+		return restart;
 	}
 
 	/**
-	 * Splits the cache in multiple lines to fit in the {@link #wrapSize}.
-	 * Is called once with the default scale, and once again if fitSize requires new scale
+	 * Walks the text and adds the lines.<br>
+	 * When <code>tail</code> is specified, walking resumes from its first line, and stops as soon as a line starts in the same state as one of
+	 * the old lines, in which case the remaining old lines are reused.
+	 *
+	 * @param lines the lines to add to
+	 * @param str the str
+	 * @param fontOptions the font options
+	 * @param wrapWidth the wrap width
+	 * @param tail the old lines from which to resume, or null to walk the whole text
+	 * @param changeEnd the index after which the text is the same as the old text
+	 * @param delta the length difference between the text and the old text
 	 */
-	private void buildLines(FontOptions fontOptions)
+	private void breakLines(List<LineInfo> lines, String str, FontOptions fontOptions, int wrapWidth, List<LineInfo> tail, int changeEnd,
+			int delta)
 	{
-		lines.clear();
-
-		String str = cache.replace("\r?(?<=\n)", "\n");
-
 		StringBuilder line = new StringBuilder();
 		StringBuilder word = new StringBuilder();
-		//FontRenderOptions fro = new FontRenderOptions();
 
-		int wrapWidth = getWrapSize();
 		float lineWidth = 0;
 		float wordWidth = 0;
 		float lineHeight = 0;
@@ -447,6 +652,28 @@ public class GuiText implements IContent
 		StringWalker walker = new StringWalker(str, fontOptions);
 		walker.skipChars(false);
 		walker.applyStyles(true);
+
+		//state at the start of the current line
+		int start = 0;
+		String carry = "";
+		float carryWidth = 0;
+		FontOptions style = fontOptions;
+		int next = 1;
+
+		if (tail != null)
+		{
+			LineInfo from = tail.get(0);
+			start = from.start;
+			carry = from.carry;
+			style = from.style;
+			carryWidth = from.carryWidth;
+			word.append(carry);
+			lineWidth = wordWidth = carryWidth;
+			lineHeight = from.startHeight;
+			walker.startAt(start, style);
+		}
+		float startHeight = lineHeight;
+
 		while (walker.walk())
 		{
 			char c = walker.getChar();
@@ -477,17 +704,42 @@ public class GuiText implements IContent
 				lineWidth -= wordWidth;
 
 				//add the new line
-				lines.add(new LineInfo(line.toString(), MathHelper.ceil(lineWidth), MathHelper.ceil(lineHeight), 0));
+				int end = walker.globalIndex() + 1;
+				lines.add(new LineInfo(line.toString(), MathHelper.ceil(lineWidth), MathHelper.ceil(lineHeight), 0, start, end, carry,
+									   carryWidth, startHeight, style));
 				line.setLength(0);
 
 				lineWidth = wordWidth;
+
+				start = end;
+				carry = word.toString();
+				carryWidth = wordWidth;
+				startHeight = lineHeight;
+				style = walker.currentStyle();
+
+				//past the change, check if the new line starts like an old one
+				if (tail != null && start >= changeEnd)
+				{
+					while (next < tail.size() && tail.get(next).start + delta < start)
+						next++;
+					if (next < tail.size() && tail.get(next)
+													.resumes(start - delta, carry, carryWidth, lineHeight, style))
+					{
+						for (LineInfo info : tail.subList(next, tail.size()))
+						{
+							info.start += delta;
+							info.end += delta;
+							lines.add(info);
+						}
+						return;
+					}
+				}
 			}
 		}
 
 		line.append(word);
-		lines.add(new LineInfo(line.toString(), MathHelper.ceil(lineWidth), MathHelper.ceil(lineHeight), 0));
-
-		updateSize(fontOptions);
+		lines.add(new LineInfo(line.toString(), MathHelper.ceil(lineWidth), MathHelper.ceil(lineHeight), 0, start, str.length(), carry,
+							   carryWidth, startHeight, style));
 	}
 
 	private boolean checkFitSize()
@@ -501,7 +753,8 @@ public class GuiText implements IContent
 							 .scaleFactor();
 
 		//text already fits
-		if (size.width() <= fitWidth) //don't call size() (size->update->checkFitSize)
+		ISize size = defaultLines.size; //don't call size() (size->update->checkFitSize)
+		if (size.width() <= fitWidth)
 			return false;
 
 		float scale = (float) fitWidth / size.width();
@@ -511,9 +764,15 @@ public class GuiText implements IContent
 		if (scale == defaultOptions.getFontScale()) //should never happen ?
 			return false;
 
-		fitOptions = defaultOptions.toBuilder()
-								   .scale(scale)
-								   .build();
+		//keep the same options while the scale does not change, so the fit lines are built incrementally
+		if (scaledOptions == null || scaledOptions.getFontScale() != scale || scaledFrom != defaultOptions)
+		{
+			scaledOptions = defaultOptions.toBuilder()
+										  .scale(scale)
+										  .build();
+			scaledFrom = defaultOptions;
+		}
+		fitOptions = scaledOptions;
 		return true;
 
 	}
@@ -559,6 +818,36 @@ public class GuiText implements IContent
 
 	}
 
+	/**
+	 * Gets the style active at the start of the text of the specified line, when rendering with the {@link FontOptions}.
+	 *
+	 * @param line the line
+	 * @param options the options
+	 * @return the style, or null if it is not known
+	 */
+	@Nullable
+	public FontOptions lineStyle(int line, FontOptions options)
+	{
+		LineState state = options == currentLines.options ? currentLines : options == defaultLines.options ? defaultLines : null;
+		if (state == null || line >= state.lines.size())
+			return null;
+		LineInfo info = state.lines.get(line);
+		//the style was recorded after walking the carried characters
+		if (info.carry.indexOf('\u00a7') != -1)
+			return null;
+		return info.style;
+	}
+
+	/**
+	 * Gets the {@link GlyphRun} holding the glyphs of this {@link GuiText}.
+	 *
+	 * @return the glyph run
+	 */
+	public GlyphRun glyphRun()
+	{
+		return glyphRun;
+	}
+
 	/**
 	 * Creates and returns a {@link StringWalker} for this text.
 	 *
@@ -572,6 +861,7 @@ public class GuiText implements IContent
 	@Override
 	public String toString()
 	{
+		List<LineInfo> lines = currentLines.lines;
 		String str = lines.size() > 0 ? lines.get(0)
 											 .text()
 											 .replace("\n", "") : "";
@@ -785,19 +1075,69 @@ public class GuiText implements IContent
 
 	}
 
+	/**
+	 * Lines built with a {@link FontOptions}, and the state they were built from.
+	 */
+	private static class LineState
+	{
+		private final List<LineInfo> lines = Lists.newArrayList();
+		/** Text the lines were built from. */
+		private String text;
+		/** Font options the lines were built with. */
+		private FontOptions options;
+		/** Wrap size the lines were built with. */
+		private int wrapSize;
+		/** Size of the lines. */
+		private ISize size = Size.of(0, 0);
+	}
+
 	public static class LineInfo implements ISize
 	{
 		private final String text;
 		private final int width;
 		private final int height;
 		private float spaceWidth;
-
-		private LineInfo(String text, int width, int height, float spaceWidth)
+		/** Position of the line in the text. */
+		private int y;
+		/** Width of the widest line up to this one. */
+		private int maxWidth;
+
+		//state of the walk at the start of the line, used to break the lines incrementally
+		/** Index in the full text of the first character walked for this line. */
+		private int start;
+		/** Index in the full text after the last character walked for this line. */
+		private int end;
+		/** Characters walked for the previous line but carried over to this one. */
+		private final String carry;
+		/** Width of the {@link #carry} characters. */
+		private final float carryWidth;
+		/** Line height when the line was started. */
+		private final float startHeight;
+		/** Style active when the line was started. */
+		private final FontOptions style;
+
+		private LineInfo(String text, int width, int height, float spaceWidth, int start, int end, String carry, float carryWidth,
+				float startHeight, FontOptions style)
 		{
 			this.text = text;
 			this.width = width;
 			this.height = height;
 			this.spaceWidth = spaceWidth;
+			this.start = start;
+			this.end = end;
+			this.carry = carry;
+			this.carryWidth = carryWidth;
+			this.startHeight = startHeight;
+			this.style = style;
+		}
+
+		/**
+		 * Checks whether walking from this line would give the same result as walking from the specified state.
+		 */
+		private boolean resumes(int start, String carry, float carryWidth, float startHeight, FontOptions style)
+		{
+			return this.start == start && this.carryWidth == carryWidth && this.startHeight == startHeight && this.style == style
+					&& this.carry.equals(carry);
 		}
 
 		public String text()
@@ -821,6 +1161,11 @@ public class GuiText implements IContent
 		{
 			return spaceWidth;
 		}
+
+		public int y()
+		{
+			return y;
+		}
 	}
 
 }
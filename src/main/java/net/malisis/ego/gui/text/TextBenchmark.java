@@ -0,0 +1,98 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.ego.gui.text;
+
+import net.malisis.ego.EGO;
+
+/**
+ * Measures the cost of growing a {@link GuiText} line by line, as a log would.<br>
+ * Compares {@link GuiText#append(String)} with setting the whole text again for each line. Run with <code>/ego benchmark text</code>.
+ *
+ * @author Ordinastie
+ */
+public class TextBenchmark
+{
+	/** Number of lines added. */
+	private static final int LINES = 10000;
+	/** Number of lines measured at the end of the run. */
+	private static final int LAST = 1000;
+
+	private TextBenchmark()
+	{
+	}
+
+	/**
+	 * Runs the benchmark and reports the results in the log and the chat.
+	 */
+	public static void run()
+	{
+		report("append", measure(true));
+		report("setText", measure(false));
+	}
+
+	/**
+	 * Adds {@link #LINES} lines to a new {@link GuiText}, updating it after each line.
+	 *
+	 * @param append whether to use {@link GuiText#append(String)}
+	 * @return the total time and the time of the last {@link #LAST} lines, in nanoseconds
+	 */
+	private static long[] measure(boolean append)
+	{
+		GuiText text = GuiText.builder()
+							  .text("")
+							  .build();
+		StringBuilder full = new StringBuilder();
+		long start = System.nanoTime();
+		long last = start;
+		for (int i = 0; i < LINES; i++)
+		{
+			if (i == LINES - LAST)
+				last = System.nanoTime();
+
+			String line = "Line " + i + " of the benchmark log\n";
+			if (append)
+				text.append(line);
+			else
+				text.setText(full.append(line)
+								 .toString());
+			text.update();
+		}
+		long end = System.nanoTime();
+		return new long[] { end - start, end - last };
+	}
+
+	private static void report(String name, long[] times)
+	{
+		String msg = String.format("%s : %d lines in %.1fms, last %d lines in %.1fms (%.1fus per line)",
+								   name,
+								   LINES,
+								   times[0] / 1e6,
+								   LAST,
+								   times[1] / 1e6,
+								   times[1] / 1e3 / LAST);
+		EGO.log.info(msg);
+		EGO.message(msg);
+	}
+}
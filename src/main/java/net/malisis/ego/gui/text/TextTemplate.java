@@ -0,0 +1,215 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.ego.gui.text;
+
+import static com.google.common.base.Preconditions.*;
+
+import com.google.common.collect.Lists;
+import net.malisis.ego.cacheddata.ICachedData;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.UnaryOperator;
+
+import javax.annotation.Nullable;
+
+/**
+ * Precompiled text with named <code>{key}</code> parameters.<br>
+ * The source text is split once into literal and parameter segments. Each parameter segment keeps the data it was last resolved with, so
+ * only the parameters whose data {@link ICachedData#hasChanged() changed} are converted and translated again when the template is
+ * applied.<br>
+ * The parameters must be {@link ICachedData#update() updated} by the caller before the template is applied.
+ *
+ * @author Ordinastie
+ */
+public class TextTemplate
+{
+	/** Text this {@link TextTemplate} was compiled from. */
+	private String source;
+	/** Literal and parameter segments. */
+	private final List<Segment> segments = Lists.newArrayList();
+	/** Reusable builder for {@link #apply(Map, UnaryOperator)}. */
+	private final StringBuilder builder = new StringBuilder();
+
+	private TextTemplate(String source)
+	{
+		this.source = source;
+		parse(0);
+	}
+
+	/**
+	 * Checks whether this {@link TextTemplate} was compiled from the specified text.
+	 *
+	 * @param str the str
+	 * @return true, if successful
+	 */
+	public boolean isFor(String str)
+	{
+		return source.equals(str);
+	}
+
+	/**
+	 * Splits the source into segments, from the specified index.<br>
+	 * Matches the same parameters as the <code>\{(?&lt;key&gt;.*?)}</code> pattern : a key cannot span multiple lines.
+	 *
+	 * @param start the index to start from
+	 */
+	private void parse(int start)
+	{
+		int index = start;
+		while ((index = source.indexOf('{', index)) != -1)
+		{
+			int end = keyEnd(index + 1);
+			if (end == -1)
+			{
+				index++;
+				continue;
+			}
+
+			if (index > start)
+				segments.add(new Segment(source.substring(start, index), null));
+			segments.add(new Segment(null, source.substring(index + 1, end)));
+			start = index = end + 1;
+		}
+		if (start < source.length())
+			segments.add(new Segment(source.substring(start), null));
+	}
+
+	/**
+	 * Finds the closing brace for a key starting at the specified index.
+	 *
+	 * @param from the from
+	 * @return the index of the closing brace, or -1 if none was found on the same line
+	 */
+	private int keyEnd(int from)
+	{
+		for (int i = from; i < source.length(); i++)
+		{
+			char c = source.charAt(i);
+			if (c == '}')
+				return i;
+			if (c == '\n' || c == '\r' || c == 0x85 || c == 0x2028 || c == 0x2029)
+				return -1;
+		}
+		return -1;
+	}
+
+	/**
+	 * Resolves the parameters and translates the resulting text.<br>
+	 * Parameters whose data did not change since their last update are not resolved again.
+	 *
+	 * @param parameters the parameters
+	 * @param translator the function used to translate the parameter values and the final text
+	 * @return the string
+	 */
+	public String apply(Map<String, ICachedData<?>> parameters, UnaryOperator<String> translator)
+	{
+		if (source.isEmpty())
+			return "";
+
+		builder.setLength(0);
+		for (Segment segment : segments)
+			builder.append(segment.resolve(parameters, translator));
+		return translator.apply(builder.toString());
+	}
+
+	/**
+	 * Extends this {@link TextTemplate} to a text starting with its source, and resolves the parameters of the appended part only.<br>
+	 * The appended part is not translated as a whole.
+	 *
+	 * @param str the text, starting with the source of this template
+	 * @param parameters the parameters
+	 * @param translator the function used to translate the parameter values
+	 * @return the resolved appended part, or null if a key on the last line of the source could span to the appended part, in which
+	 * 		case the text must be compiled again
+	 */
+	@Nullable
+	public String extend(String str, Map<String, ICachedData<?>> parameters, UnaryOperator<String> translator)
+	{
+		int from = source.length();
+		for (int i = from - 1; i >= 0; i--)
+		{
+			char c = source.charAt(i);
+			if (c == '{')
+				return null;
+			if (c == '\n' || c == '\r' || c == 0x85 || c == 0x2028 || c == 0x2029)
+				break;
+		}
+
+		int count = segments.size();
+		source = str;
+		parse(from);
+
+		builder.setLength(0);
+		for (Segment segment : segments.subList(count, segments.size()))
+			builder.append(segment.resolve(parameters, translator));
+		return builder.toString();
+	}
+
+	/**
+	 * Compiles the specified text into a {@link TextTemplate}.
+	 *
+	 * @param str the str
+	 * @return the text template
+	 */
+	public static TextTemplate compile(String str)
+	{
+		return new TextTemplate(checkNotNull(str));
+	}
+
+	/**
+	 * Part of the text, either literal or a parameter.
+	 */
+	private static class Segment
+	{
+		/** Parameter key, null for literal segments. */
+		private final String key;
+		/** Data the segment was last resolved with. */
+		private ICachedData<?> data;
+		/** Resolved text of the segment. */
+		private String text;
+
+		private Segment(String text, String key)
+		{
+			this.text = text;
+			this.key = key;
+		}
+
+		private String resolve(Map<String, ICachedData<?>> parameters, UnaryOperator<String> translator)
+		{
+			if (key == null)
+				return text;
+
+			ICachedData<?> data = parameters.get(key);
+			if (text != null && data == this.data && (data == null || !data.hasChanged()))
+				return text;
+
+			this.data = data;
+			text = translator.apply(data != null ? Objects.toString(data.get()) : key);
+			return text;
+		}
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.ego.atlas;
+
+import com.google.common.collect.Lists;
+import net.malisis.ego.atlas.Atlas.Holder;
+import net.malisis.ego.atlas.Stitcher.Packing;
+import net.malisis.ego.gui.render.GuiIcon;
+import net.minecraft.util.ResourceLocation;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the {@link Packing} algorithms of the {@link Stitcher} on synthetic icon sets.<br>
+ * Runs headless, without starting Minecraft : <code>java net.malisis.ego.atlas.StitcherBenchmark [max size]</code>.<br>
+ * Reports for each set and packing the size of the first page and the bounds of its packed icons, the ratio of the packed area and of the
+ * page covered by icons, the number of icons spilling over to other pages, and the time to stitch.
+ *
+ * @author Ordinastie
+ */
+public class StitcherBenchmark
+{
+	private static final int WARMUP = 5;
+	private static final int RUNS = 20;
+
+	private StitcherBenchmark()
+	{
+	}
+
+	public static void main(String[] args)
+	{
+		int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+		Atlas atlas = new Atlas("benchmark");
+
+		run(atlas, "gui (400 icons, 8-64px)", holders(atlas, 400, 8, 64, 1), maxSize);
+		run(atlas, "uniform (1024 icons, 16px)", holders(atlas, 1024, 16, 16, 2), maxSize);
+		run(atlas, "mixed (2000 icons, 4-128px)", holders(atlas, 2000, 4, 128, 3), maxSize);
+		run(atlas, "large (200 icons, 32-512px)", holders(atlas, 200, 32, 512, 4), maxSize);
+	}
+
+	private static void run(Atlas atlas, String name, List<Holder> holders, int maxSize)
+	{
+		System.out.println(name + ", max size " + maxSize);
+		for (Packing packing : Packing.values())
+		{
+			for (int i = 0; i < WARMUP; i++)
+				new Stitcher(maxSize, maxSize, packing).stitch(holders);
+
+			Stitcher stitcher = null;
+			List<Holder> unplaced = null;
+			long start = System.nanoTime();
+			for (int i = 0; i < RUNS; i++)
+			{
+				stitcher = new Stitcher(maxSize, maxSize, packing);
+				unplaced = stitcher.stitch(holders);
+			}
+			long time = (System.nanoTime() - start) / RUNS;
+
+			System.out.println(String.format("  %-10s %5dx%-5d (packed %5dx%-5d) %5.1f%% of packed, %5.1f%% of page, %4d spilled, %8.2fms",
+											 packing,
+											 stitcher.width(),
+											 stitcher.height(),
+											 stitcher.packedWidth(),
+											 stitcher.packedHeight(),
+											 stitcher.efficiency() * 100,
+											 stitcher.pageEfficiency() * 100,
+											 unplaced.size(),
+											 time / 1e6));
+		}
+	}
+
+	/**
+	 * Creates holders with random sizes, mostly small with a few large ones, as GUI icons usually are.
+	 */
+	private static List<Holder> holders(Atlas atlas, int count, int min, int max, long seed)
+	{
+		Random random = new Random(seed);
+		List<Holder> holders = Lists.newArrayList();
+		for (int i = 0; i < count; i++)
+		{
+			double r = random.nextDouble();
+			int w = min + (int) ((max - min) * r * r);
+			int h = random.nextInt(4) == 0 ? w : min + (int) ((max - min) * Math.pow(random.nextDouble(), 2));
+			GuiIcon icon = new GuiIcon(new ResourceLocation("benchmark", "icon_" + i));
+			holders.add(atlas.new Holder(icon, w, h));
+		}
+		return holders;
+	}
+}
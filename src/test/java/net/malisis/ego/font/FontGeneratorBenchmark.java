@@ -0,0 +1,163 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2018 Ordinastie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package net.malisis.ego.font;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineMetrics;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Compares the rasterization by the {@link FontGenerator} of the full font texture and of glyph pages, with the tiles drawn in parallel
+ * and one after the other.<br>
+ * Runs headless, without Minecraft : <code>java net.malisis.ego.font.FontGeneratorBenchmark [font name] [pages...]</code>, the pages being
+ * given in hexadecimal (<code>0 4 4e</code> for Latin, Cyrillic and the start of CJK).<br>
+ * The number of threads drawing the tiles can be set with <code>-Djava.util.concurrent.ForkJoinPool.common.parallelism=n</code>.
+ *
+ * @author Ordinastie
+ */
+public class FontGeneratorBenchmark
+{
+	private static final int WARMUP = 3;
+	private static final int RUNS = 10;
+	/** Size of the full font texture, as generated for the first page of characters. */
+	private static final int TEXTURE_SIZE = 4096;
+
+	private FontGeneratorBenchmark()
+	{
+	}
+
+	public static void main(String[] args)
+	{
+		System.setProperty("java.awt.headless", "true");
+
+		FontGeneratorOptions options = new FontGeneratorOptions();
+		String name = args.length > 0 ? args[0] : Font.SANS_SERIF;
+		Font font = new Font(name, Font.PLAIN, 1).deriveFont(options.fontSize);
+		int[] pages = args.length > 1 ? Arrays.stream(args, 1, args.length)
+											  .mapToInt(s -> Integer.parseInt(s, 16))
+											  .toArray() : new int[] { 0 };
+
+		System.out.println("Font " + font.getFontName() + ", " + options.fontSize + "px, "
+								   + Runtime.getRuntime()
+											.availableProcessors() + " processors, "
+								   + ForkJoinPool.commonPool()
+												 .getParallelism() + " threads");
+		runTexture(font, options);
+		for (int page : pages)
+			run(font, options, page);
+	}
+
+	/**
+	 * Measures the generation of the full font texture, the way {@link EGOFont} does when there is no cache.
+	 */
+	private static void runTexture(Font font, FontGeneratorOptions options)
+	{
+		FontGenerator generator = new FontGenerator(font, glyphs(font, options, 0), options);
+		long serial = measure(() -> generator.generate(TEXTURE_SIZE, false));
+		long parallel = measure(() -> generator.generate(TEXTURE_SIZE, true));
+		boolean same = Arrays.equals(pixels(generator.generate(TEXTURE_SIZE, false)), pixels(generator.generate(TEXTURE_SIZE, true)));
+
+		System.out.println(String.format("Texture : %dx%<d, serial %.1fms, parallel %.1fms (x%.2f)%s",
+										 TEXTURE_SIZE,
+										 serial / 1e6,
+										 parallel / 1e6,
+										 (double) serial / parallel,
+										 same ? "" : ", images differ"));
+	}
+
+	private static void run(Font font, FontGeneratorOptions options, int page)
+	{
+		CharData[] glyphs = glyphs(font, options, page);
+		long count = Arrays.stream(glyphs)
+						   .filter(cd -> cd != null)
+						   .count();
+		if (count == 0)
+		{
+			System.out.println(String.format("Page %02x : no glyph", page));
+			return;
+		}
+
+		FontGenerator generator = new FontGenerator(font, glyphs, options);
+		long serial = measure(() -> generator.generatePage(false));
+		long parallel = measure(() -> generator.generatePage(true));
+		boolean same = Arrays.equals(pixels(generator.generatePage(false)), pixels(generator.generatePage(true)));
+
+		System.out.println(String.format("Page %02x : %d glyphs, %dx%<d, serial %.1fms, parallel %.1fms (x%.2f)%s",
+										 page,
+										 count,
+										 generator.fitSize(0),
+										 serial / 1e6,
+										 parallel / 1e6,
+										 (double) serial / parallel,
+										 same ? "" : ", images differ"));
+	}
+
+	/**
+	 * Gets the average time to generate the image.
+	 *
+	 * @return the time in nanoseconds
+	 */
+	private static long measure(Supplier<BufferedImage> generation)
+	{
+		for (int i = 0; i < WARMUP; i++)
+			generation.get();
+
+		long start = System.nanoTime();
+		for (int i = 0; i < RUNS; i++)
+			generation.get();
+		return (System.nanoTime() - start) / RUNS;
+	}
+
+	/**
+	 * Builds the {@link CharData} for a page the same way {@link EGOFont} does.
+	 */
+	private static CharData[] glyphs(Font font, FontGeneratorOptions options, int page)
+	{
+		FontRenderContext frc = new FontRenderContext(null, true, true);
+		CharData[] glyphs = new CharData[CharTable.PAGE_SIZE];
+		for (int i = 0; i < glyphs.length; i++)
+		{
+			char c = (char) (page * CharTable.PAGE_SIZE + i);
+			if (!font.canDisplay(c))
+				continue;
+
+			String s = String.valueOf(c);
+			LineMetrics lm = font.getLineMetrics(s, frc);
+			Rectangle2D bounds = font.getStringBounds(s, frc);
+			glyphs[i] = new CharData(c, lm.getAscent(), (float) bounds.getWidth(), options.fontSize);
+		}
+		return glyphs;
+	}
+
+	private static int[] pixels(BufferedImage img)
+	{
+		return img.getRGB(0, 0, img.getWidth(), img.getHeight(), null, 0, img.getWidth());
+	}
+}